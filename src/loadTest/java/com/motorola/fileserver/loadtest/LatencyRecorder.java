@@ -0,0 +1,63 @@
+package com.motorola.fileserver.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects request latencies for a single client thread - recorders are merged once a phase completes
+ */
+public class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    public void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    public void recordError() {
+        errors++;
+    }
+
+    public void merge(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, count + other.count);
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    /**
+     * Summarise the recorded latencies
+     *
+     * @param seconds Length of the recording period, used to derive throughput
+     */
+    public LoadTestReport.Summary summarise(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+
+        return new LoadTestReport.Summary(count, errors, count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                count == 0 ? 0 : toMillis(sorted[count - 1]),
+                count == 0 ? 0 : toMillis(Arrays.stream(sorted).sum() / count));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        // nearest-rank percentile
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return toMillis(sorted[Math.max(rank - 1, 0)]);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+}
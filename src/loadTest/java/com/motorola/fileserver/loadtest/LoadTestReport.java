@@ -0,0 +1,47 @@
+package com.motorola.fileserver.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.motorola.fileserver.loadtest.LoadTestScenario.Operation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine-readable results of a load test run, written as JSON
+ *
+ * @param timestamp When the run started, in ISO-8601 format
+ * @param scenario  The settings the run used
+ * @param phases    Results for each concurrency level, in the order they ran
+ */
+public record LoadTestReport(String timestamp, LoadTestScenario scenario, List<Phase> phases) {
+
+    /**
+     * Results for a single concurrency level
+     *
+     * @param concurrency Number of concurrent clients
+     * @param seconds     Length of the recording period, excluding warmup
+     * @param total       Results across all operations
+     * @param mix         Percentage of the recorded requests sent for each operation, which can differ slightly from
+     *                    the configured mix when a client has no files left to download or delete
+     * @param operations  Results per operation
+     */
+    public record Phase(int concurrency, double seconds, Summary total, Map<Operation, Double> mix,
+                        Map<Operation, Summary> operations) {
+    }
+
+    /**
+     * Throughput and latency for a set of requests - latencies are in milliseconds and only cover successful requests
+     */
+    public record Summary(long requests, long errors, double throughput, double p50, double p99, double p999,
+                          double max, double mean) {
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().findAndRegisterModules().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), this);
+    }
+
+}
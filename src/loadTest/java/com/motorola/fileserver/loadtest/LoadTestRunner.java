@@ -0,0 +1,216 @@
+package com.motorola.fileserver.loadtest;
+
+import com.motorola.fileserver.loadtest.LoadTestScenario.Operation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives a mix of upload/download/list/delete requests against a running server from a number of concurrent clients.
+ * Each client owns its own slice of the keyspace, so it always knows which of its files exist and no request fails
+ * because another client deleted or replaced a file in the meantime.
+ */
+public class LoadTestRunner {
+
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    private final URI baseUri;
+    private final LoadTestScenario scenario;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    // which filenames in the keyspace are currently expected to exist on the server - during a phase each entry is
+    // only read and written by the client owning its key, and phases run one after another
+    private final boolean[] stored;
+
+    public LoadTestRunner(URI baseUri, LoadTestScenario scenario) {
+        this.baseUri = baseUri;
+        this.scenario = scenario;
+        this.stored = new boolean[scenario.keyspace()];
+    }
+
+    /**
+     * Upload half of the keyspace, so the first downloads and deletes of a run have files to work with
+     */
+    public void seed() throws IOException, InterruptedException {
+        for (int key = 0; key < scenario.keyspace(); key += 2) {
+            upload(key, scenario.pickFileSize(ThreadLocalRandom.current()));
+        }
+    }
+
+    /**
+     * Run a single phase of the scenario
+     *
+     * @param concurrency Number of concurrent clients - at most the size of the keyspace, so every client has a slice
+     * @return throughput and latencies recorded after the warmup period
+     */
+    public LoadTestReport.Phase run(int concurrency) throws Exception {
+        if (concurrency < 1 || concurrency > scenario.keyspace()) {
+            throw new IllegalArgumentException("Concurrency must be between 1 and the keyspace size ("
+                    + scenario.keyspace() + "), got " + concurrency);
+        }
+
+        long start = System.nanoTime();
+        long recordFrom = start + scenario.warmup().toNanos();
+        long end = recordFrom + scenario.duration().toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<Map<Operation, LatencyRecorder>>> clients = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                int client = i;
+                clients.add(executor.submit(() -> runClient(client, concurrency, recordFrom, end)));
+            }
+
+            Map<Operation, LatencyRecorder> merged = new EnumMap<>(Operation.class);
+            for (Future<Map<Operation, LatencyRecorder>> future : clients) {
+                future.get().forEach((operation, recorder) ->
+                        merged.computeIfAbsent(operation, ignored -> new LatencyRecorder()).merge(recorder));
+            }
+
+            double seconds = scenario.duration().toNanos() / 1_000_000_000.0;
+            LatencyRecorder total = new LatencyRecorder();
+            Map<Operation, LoadTestReport.Summary> operations = new EnumMap<>(Operation.class);
+
+            merged.forEach((operation, recorder) -> {
+                total.merge(recorder);
+                operations.put(operation, recorder.summarise(seconds));
+            });
+
+            LoadTestReport.Summary totalSummary = total.summarise(seconds);
+            long sent = totalSummary.requests() + totalSummary.errors();
+            Map<Operation, Double> mix = new EnumMap<>(Operation.class);
+            operations.forEach((operation, summary) ->
+                    mix.put(operation, 100.0 * (summary.requests() + summary.errors()) / sent));
+
+            return new LoadTestReport.Phase(concurrency, seconds, totalSummary, mix, operations);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Send requests from a single client until the end of the phase, using the keys k where k % concurrency == client
+     */
+    private Map<Operation, LatencyRecorder> runClient(int client, int concurrency, long recordFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        int sliceSize = (scenario.keyspace() - client + concurrency - 1) / concurrency;
+
+        long now = System.nanoTime();
+        while (now < end) {
+            Operation operation = scenario.pickOperation(random);
+            int start = random.nextInt(sliceSize);
+
+            // only download or delete files expected to exist, so missing files do not skew the results
+            int key = switch (operation) {
+                case DOWNLOAD, DELETE -> findStored(client, concurrency, sliceSize, start);
+                default -> client + start * concurrency;
+            };
+
+            // none of the client's files exist right now - the effective mix in the report shows any drift this causes
+            if (key < 0) {
+                now = System.nanoTime();
+                continue;
+            }
+
+            boolean success;
+            try {
+                success = switch (operation) {
+                    case UPLOAD -> upload(key, scenario.pickFileSize(random));
+                    case DOWNLOAD -> send(HttpRequest.newBuilder(baseUri.resolve("/download/" + filename(key)))
+                            .GET().build());
+                    case LIST -> send(HttpRequest.newBuilder(baseUri.resolve("/list")).GET().build());
+                    case DELETE -> delete(key);
+                };
+            } catch (IOException e) {
+                success = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            long finished = System.nanoTime();
+            if (now >= recordFrom) {
+                LatencyRecorder recorder = recorders.computeIfAbsent(operation, ignored -> new LatencyRecorder());
+                if (success) {
+                    recorder.record(finished - now);
+                } else {
+                    recorder.recordError();
+                }
+            }
+            now = finished;
+        }
+
+        return recorders;
+    }
+
+    private boolean upload(int key, int size) throws IOException, InterruptedException {
+        byte[] content = new byte[size];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(size + 256);
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename(key) + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        boolean success = send(HttpRequest.newBuilder(baseUri.resolve("/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build());
+
+        if (success) {
+            stored[key] = true;
+        }
+        return success;
+    }
+
+    private boolean delete(int key) throws IOException, InterruptedException {
+        boolean success = send(HttpRequest.newBuilder(baseUri.resolve("/delete/" + filename(key))).DELETE().build());
+
+        if (success) {
+            stored[key] = false;
+        }
+        return success;
+    }
+
+    /**
+     * Find a key in a client's slice whose file is expected to exist, checking the slice in order from a given position
+     *
+     * @return the key, or -1 if none of the client's files exist
+     */
+    private int findStored(int client, int concurrency, int sliceSize, int start) {
+        for (int i = 0; i < sliceSize; i++) {
+            int key = client + ((start + i) % sliceSize) * concurrency;
+            if (stored[key]) {
+                return key;
+            }
+        }
+        return -1;
+    }
+
+    private boolean send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        return response.statusCode() < 400;
+    }
+
+    private static String filename(int key) {
+        return "loadtest-" + key + ".bin";
+    }
+
+}
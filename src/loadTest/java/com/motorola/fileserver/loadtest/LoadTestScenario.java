@@ -0,0 +1,97 @@
+package com.motorola.fileserver.loadtest;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Settings for a load test run, read from "loadtest.*" system properties (passed as -Ploadtest.*=... to Gradle)
+ *
+ * @param mix               Relative weights of each operation, e.g. "upload:20,download:60,list:10,delete:10"
+ * @param fileSizes         Uploaded file sizes with relative weights, e.g. "1KB:60,16KB:30,100KB:10"
+ * @param concurrencyLevels Number of concurrent clients for each phase of the run, e.g. "1,8,32"
+ * @param warmup            Time each phase runs before latencies are recorded
+ * @param duration          Time each phase records latencies for
+ * @param keyspace          Number of distinct filenames used, so downloads and deletes mostly hit existing files
+ * @param minThroughput     Requests per second every phase must reach for the run to pass - 0 to disable the check
+ */
+public record LoadTestScenario(Map<Operation, Integer> mix, List<WeightedSize> fileSizes,
+                               List<Integer> concurrencyLevels, Duration warmup, Duration duration, int keyspace,
+                               double minThroughput) {
+
+    public enum Operation {
+        UPLOAD,
+        DOWNLOAD,
+        LIST,
+        DELETE
+    }
+
+    public record WeightedSize(int bytes, int weight) {
+    }
+
+    public static LoadTestScenario fromSystemProperties() {
+        return new LoadTestScenario(
+                parseMix(System.getProperty("loadtest.mix", "upload:20,download:60,list:10,delete:10")),
+                parseFileSizes(System.getProperty("loadtest.file-sizes", "1KB:60,16KB:30,100KB:10")),
+                Arrays.stream(System.getProperty("loadtest.concurrency", "1,8,32").split(","))
+                        .map(String::trim).map(Integer::parseInt).toList(),
+                Duration.ofSeconds(Long.parseLong(System.getProperty("loadtest.warmup-seconds", "5"))),
+                Duration.ofSeconds(Long.parseLong(System.getProperty("loadtest.duration-seconds", "30"))),
+                Integer.parseInt(System.getProperty("loadtest.keyspace", "1000")),
+                Double.parseDouble(System.getProperty("loadtest.min-throughput", "0")));
+    }
+
+    public Operation pickOperation(Random random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = random.nextInt(total);
+
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Operation mix has no positive weights");
+    }
+
+    public int pickFileSize(Random random) {
+        int total = fileSizes.stream().mapToInt(WeightedSize::weight).sum();
+        int pick = random.nextInt(total);
+
+        for (WeightedSize size : fileSizes) {
+            pick -= size.weight();
+            if (pick < 0) {
+                return size.bytes();
+            }
+        }
+        throw new IllegalStateException("File size distribution has no positive weights");
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+        for (String part : value.split(",")) {
+            String[] fields = part.trim().split(":");
+            mix.put(Operation.valueOf(fields[0].trim().toUpperCase()), Integer.parseInt(fields[1].trim()));
+        }
+        return mix;
+    }
+
+    private static List<WeightedSize> parseFileSizes(String value) {
+        List<WeightedSize> sizes = new ArrayList<>();
+
+        for (String part : value.split(",")) {
+            String[] fields = part.trim().split(":");
+            sizes.add(new WeightedSize((int) DataSize.parse(fields[0].trim()).toBytes(),
+                    Integer.parseInt(fields[1].trim())));
+        }
+        return sizes;
+    }
+
+}
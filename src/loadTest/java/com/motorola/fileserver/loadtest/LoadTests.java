@@ -0,0 +1,68 @@
+package com.motorola.fileserver.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application on a random port and runs the configured load test scenario against it, writing the
+ * results to the file given by the "loadtest.report" system property
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.com.motorola.fileserver=warn")
+public class LoadTests {
+
+    @TempDir
+    static Path tempDir;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("storage.location", () -> tempDir.resolve("uploads").toString());
+    }
+
+    @Test
+    public void testScenario() throws Exception {
+        LoadTestScenario scenario = LoadTestScenario.fromSystemProperties();
+        LoadTestRunner runner = new LoadTestRunner(URI.create("http://localhost:" + port), scenario);
+        String timestamp = Instant.now().toString();
+
+        runner.seed();
+
+        List<LoadTestReport.Phase> phases = new ArrayList<>();
+        for (int concurrency : scenario.concurrencyLevels()) {
+            LoadTestReport.Phase phase = runner.run(concurrency);
+            phases.add(phase);
+
+            LoadTestReport.Summary total = phase.total();
+            System.out.printf("concurrency=%d requests=%d errors=%d throughput=%.1f/s p50=%.2fms p99=%.2fms "
+                            + "p999=%.2fms%n", concurrency, total.requests(), total.errors(), total.throughput(),
+                    total.p50(), total.p99(), total.p999());
+        }
+
+        Path reportFile = Paths.get(System.getProperty("loadtest.report", "build/reports/load-test/results.json"));
+        new LoadTestReport(timestamp, scenario, phases).write(reportFile);
+        System.out.println("Load test report written to " + reportFile.toAbsolutePath());
+
+        for (LoadTestReport.Phase phase : phases) {
+            assertThat(phase.total().errors()).as("errors at concurrency %d", phase.concurrency()).isZero();
+            assertThat(phase.total().throughput()).as("throughput at concurrency %d", phase.concurrency())
+                    .isGreaterThanOrEqualTo(scenario.minThroughput());
+        }
+    }
+
+}
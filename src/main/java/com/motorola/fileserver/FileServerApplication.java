@@ -1,12 +1,14 @@
 package com.motorola.fileserver;
 
+import com.motorola.fileserver.config.ExpiryProperties;
+import com.motorola.fileserver.config.ReplicationProperties;
 import com.motorola.fileserver.config.StorageProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties(StorageProperties.class)
+@EnableConfigurationProperties({StorageProperties.class, ReplicationProperties.class, ExpiryProperties.class})
 public class FileServerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,55 @@
+package com.motorola.fileserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("expiry")
+public class ExpiryProperties {
+
+    /**
+     * Folder location for the persisted expiry schedule
+     */
+    private String location = "expiry";
+
+    /**
+     * Resolution of the expiry schedule - files are deleted up to one tick after they expire. Must be at least 1ms
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * Maximum number of expired files deleted per second - any more are deleted on following ticks. Must be at least 1
+     */
+    private int maxDeletesPerSecond = 100;
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public Duration getTick() {
+        return tick;
+    }
+
+    public void setTick(Duration tick) {
+        if (tick == null || tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Expiry tick must be at least 1 millisecond.");
+        }
+        this.tick = tick;
+    }
+
+    public int getMaxDeletesPerSecond() {
+        return maxDeletesPerSecond;
+    }
+
+    public void setMaxDeletesPerSecond(int maxDeletesPerSecond) {
+        if (maxDeletesPerSecond < 1) {
+            throw new IllegalArgumentException("Expiry max deletes per second must be at least 1.");
+        }
+        this.maxDeletesPerSecond = maxDeletesPerSecond;
+    }
+
+}
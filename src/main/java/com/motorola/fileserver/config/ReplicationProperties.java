@@ -0,0 +1,144 @@
+package com.motorola.fileserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties("replication")
+public class ReplicationProperties {
+
+    /**
+     * Base URLs of peer nodes to replicate to, e.g. http://localhost:8081 - replication is disabled when empty
+     */
+    private List<String> peers = new ArrayList<>();
+
+    /**
+     * Folder location for the operation log and peer positions
+     */
+    private String logLocation = "replication";
+
+    /**
+     * Maximum number of operations shipped to a peer in a single request
+     */
+    private int batchSize = 32;
+
+    /**
+     * Maximum number of operations kept for peers that have not acknowledged them - a peer that falls further behind,
+     * e.g. one that is gone for good, is sent a full copy of the stored files once it is reachable again
+     */
+    private int maxPendingOperations = 100_000;
+
+    /**
+     * Delay between checks for new operations to ship
+     */
+    private Duration shipInterval = Duration.ofSeconds(1);
+
+    /**
+     * Delay before retrying an unreachable peer - doubles on each consecutive failure
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Upper limit for the retry delay
+     */
+    private Duration maxRetryBackoff = Duration.ofMinutes(1);
+
+    /**
+     * Connect and read timeout for shipping operations to peers
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Connect and read timeout for fetching a file missing locally from a peer - kept short, as a client download
+     * waits on it
+     */
+    private Duration readFailoverTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Whether a download of a file missing locally is fetched from a peer
+     */
+    private boolean readFailover = true;
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    public void setPeers(List<String> peers) {
+        this.peers = peers;
+    }
+
+    public String getLogLocation() {
+        return logLocation;
+    }
+
+    public void setLogLocation(String logLocation) {
+        this.logLocation = logLocation;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxPendingOperations() {
+        return maxPendingOperations;
+    }
+
+    public void setMaxPendingOperations(int maxPendingOperations) {
+        this.maxPendingOperations = maxPendingOperations;
+    }
+
+    public Duration getShipInterval() {
+        return shipInterval;
+    }
+
+    public void setShipInterval(Duration shipInterval) {
+        this.shipInterval = shipInterval;
+    }
+
+    public Duration getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Duration retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Duration getMaxRetryBackoff() {
+        return maxRetryBackoff;
+    }
+
+    public void setMaxRetryBackoff(Duration maxRetryBackoff) {
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Duration getReadFailoverTimeout() {
+        return readFailoverTimeout;
+    }
+
+    public void setReadFailoverTimeout(Duration readFailoverTimeout) {
+        this.readFailoverTimeout = readFailoverTimeout;
+    }
+
+    public boolean isReadFailover() {
+        return readFailover;
+    }
+
+    public void setReadFailover(boolean readFailover) {
+        this.readFailover = readFailover;
+    }
+
+}
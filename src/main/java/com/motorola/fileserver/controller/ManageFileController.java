@@ -3,11 +3,13 @@ package com.motorola.fileserver.controller;
 import com.motorola.fileserver.exception.DownloadException;
 import com.motorola.fileserver.exception.FileValidationException;
 import com.motorola.fileserver.exception.StorageException;
+import com.motorola.fileserver.service.IReplicationService;
 import com.motorola.fileserver.service.IStorageService;
 import jakarta.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -32,42 +35,57 @@ public class ManageFileController {
     @Autowired
     private final IStorageService storageService;
 
-    public ManageFileController(IStorageService storageService) {
+    @Autowired
+    private final IReplicationService replicationService;
+
+    public ManageFileController(IStorageService storageService, IReplicationService replicationService) {
         this.storageService = storageService;
+        this.replicationService = replicationService;
     }
 
     /**
      * Upload a file to the server
      *
      * @param file The file to be uploaded/stored
+     * @param ttl  Optional time-to-live after which the file is deleted, e.g. "12h", "7d" or "PT30M"
      */
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadFile(@RequestParam("file") @Nonnull MultipartFile file) {
+    public ResponseEntity<String> uploadFile(@RequestParam("file") @Nonnull MultipartFile file,
+                                             @RequestParam(value = "ttl", required = false) String ttl) {
         LOGGER.trace("Enter uploadFile");
 
         try {
-            storageService.store(file);
+            if (ttl == null) {
+                storageService.store(file);
+            } else {
+                storageService.store(file, DurationStyle.detectAndParse(ttl));
+            }
 
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body("Successfully uploaded: " + file.getOriginalFilename());
         } catch (StorageException ex) {
             return ResponseEntity.internalServerError().build();
+        } catch (FileValidationException | IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
     /**
-     * Download a given file by name from the server
+     * Download a given file by name from the server - files missing locally are fetched from a peer node if possible
      *
-     * @param filename String representing the name of the file to be downloaded - includes regex to allow for '.' chars
+     * @param filename String representing the name of the file to be downloaded - captures the rest of the path, so
+     *                 files in subdirectories can be downloaded as e.g. /download/reports/2024.csv
      */
-    @GetMapping("/download/{filename:.+}")
+    @GetMapping("/download/{*filename}")
     public ResponseEntity<Resource> downloadFile(@PathVariable @Nonnull String filename) {
         LOGGER.trace("Enter downloadFile");
+        filename = stripLeadingSlash(filename);
 
         try {
             return storageService.download(filename);
         } catch (DownloadException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return replicationService.downloadFromPeer(filename)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
         } catch (FileValidationException ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -77,11 +95,13 @@ public class ManageFileController {
     /**
      * Delete a file by name from the server
      *
-     * @param filename String representing the name of the file to be deleted - includes regex to allow for '.' chars
+     * @param filename String representing the name of the file to be deleted - captures the rest of the path, so
+     *                 files in subdirectories can be deleted as e.g. /delete/reports/2024.csv
      */
-    @DeleteMapping("/delete/{filename:.+}")
+    @DeleteMapping("/delete/{*filename}")
     public ResponseEntity<String> deleteFile(@PathVariable @Nonnull String filename) {
         LOGGER.trace("Enter deleteFile");
+        filename = stripLeadingSlash(filename);
 
         try {
             storageService.delete(filename);
@@ -109,5 +129,11 @@ public class ManageFileController {
 
     }
 
+    /**
+     * A "{*filename}" path variable captures the rest of the path including its leading '/'
+     */
+    private static String stripLeadingSlash(String filename) {
+        return filename.startsWith("/") ? filename.substring(1) : filename;
+    }
 
 }
@@ -0,0 +1,115 @@
+package com.motorola.fileserver.controller;
+
+import com.motorola.fileserver.exception.DownloadException;
+import com.motorola.fileserver.exception.FileTooLargeException;
+import com.motorola.fileserver.exception.FileValidationException;
+import com.motorola.fileserver.exception.StorageException;
+import com.motorola.fileserver.model.ReplicationBatch;
+import com.motorola.fileserver.service.IReplicationService;
+import com.motorola.fileserver.service.IStorageService;
+import jakarta.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.InputStream;
+
+/**
+ * Exposes REST API endpoints used by peer nodes to replicate operations and fetch files
+ */
+@Controller
+@RequestMapping("/replication")
+public class ReplicationController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationController.class);
+
+    @Autowired
+    private final IReplicationService replicationService;
+
+    @Autowired
+    private final IStorageService storageService;
+
+    // files received from peers are held to the same limit as uploads
+    private final long maxFileSize;
+
+    public ReplicationController(IReplicationService replicationService, IStorageService storageService,
+                                 MultipartProperties multipartProperties) {
+        this.replicationService = replicationService;
+        this.storageService = storageService;
+        this.maxFileSize = multipartProperties.getMaxFileSize().toBytes();
+    }
+
+    /**
+     * Apply a batch of deletes shipped from a peer
+     *
+     * @param batch The deletes to apply, in order
+     */
+    @PostMapping("/deletes")
+    public ResponseEntity<Void> receiveDeletes(@RequestBody @Nonnull ReplicationBatch batch) {
+        LOGGER.trace("Enter receiveDeletes");
+
+        try {
+            replicationService.apply(batch);
+            return ResponseEntity.ok().build();
+        } catch (FileValidationException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (StorageException ex) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Store a file shipped from a peer, overwriting any existing file of the same name. Files larger than the maximum
+     * upload size (spring.servlet.multipart.max-file-size) are rejected
+     *
+     * @param filename String representing the name of the file to be stored - passed as a query parameter, as it may
+     *                 include subdirectories
+     * @param content  The request body, streamed straight to disk
+     */
+    @PutMapping("/files")
+    public ResponseEntity<Void> receiveFile(@RequestParam @Nonnull String filename, InputStream content) {
+        LOGGER.trace("Enter receiveFile");
+
+        try {
+            storageService.storeReplica(filename, content, maxFileSize);
+            return ResponseEntity.ok().build();
+        } catch (FileTooLargeException ex) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        } catch (FileValidationException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (StorageException ex) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Download a file stored on this node - unlike /download, never falls back to another peer
+     *
+     * @param filename String representing the name of the file to be downloaded - passed as a query parameter, as it
+     *                 may include subdirectories
+     */
+    @GetMapping("/files")
+    public ResponseEntity<Resource> downloadLocalFile(@RequestParam @Nonnull String filename) {
+        LOGGER.trace("Enter downloadLocalFile");
+
+        try {
+            return storageService.download(filename);
+        } catch (DownloadException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (FileValidationException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.motorola.fileserver.controller;
+
+import com.motorola.fileserver.exception.SearchException;
+import com.motorola.fileserver.model.SearchResult;
+import com.motorola.fileserver.service.ISearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Exposes REST API endpoints for finding files by name
+ */
+@Controller
+public class SearchController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchController.class);
+
+    @Autowired
+    private final ISearchService searchService;
+
+    public SearchController(ISearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * Search filenames on the server by exactly one of prefix, substring or glob pattern
+     *
+     * @param prefix    Find names starting with this value
+     * @param substring Find names containing this value
+     * @param glob      Find names matching this pattern, where '*' matches any characters and '?' a single character
+     * @param after     The "next" cursor returned with the previous page of results
+     * @param limit     Maximum number of names to return
+     */
+    @GetMapping("/search")
+    public ResponseEntity<SearchResult> searchFiles(@RequestParam(required = false) String prefix,
+                                                    @RequestParam(required = false) String substring,
+                                                    @RequestParam(required = false) String glob,
+                                                    @RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "100") int limit) {
+        LOGGER.trace("Enter searchFiles");
+
+        try {
+            return ResponseEntity.ok().body(searchService.search(prefix, substring, glob, after, limit));
+        } catch (SearchException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+}
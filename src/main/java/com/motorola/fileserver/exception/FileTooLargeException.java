@@ -0,0 +1,9 @@
+package com.motorola.fileserver.exception;
+
+public class FileTooLargeException extends RuntimeException {
+
+    public FileTooLargeException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.motorola.fileserver.exception;
+
+public class SearchException extends RuntimeException {
+
+    public SearchException(String message) {
+        super(message);
+    }
+
+    public SearchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
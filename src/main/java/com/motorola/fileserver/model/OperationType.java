@@ -0,0 +1,9 @@
+package com.motorola.fileserver.model;
+
+/**
+ * Kinds of file operations that change the contents of the storage location
+ */
+public enum OperationType {
+    STORE,
+    DELETE
+}
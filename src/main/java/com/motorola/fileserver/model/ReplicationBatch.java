@@ -0,0 +1,12 @@
+package com.motorola.fileserver.model;
+
+import java.util.List;
+
+/**
+ * Consecutive deletes shipped to a peer node in a single request - stored files are sent one at a time instead, so
+ * their content never has to be held in memory
+ *
+ * @param deletes Names of the files to delete, in log order
+ */
+public record ReplicationBatch(List<String> deletes) {
+}
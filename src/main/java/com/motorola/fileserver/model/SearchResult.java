@@ -0,0 +1,12 @@
+package com.motorola.fileserver.model;
+
+import java.util.List;
+
+/**
+ * A page of filenames matching a search, in ascending order
+ *
+ * @param names Matching filenames
+ * @param next  Cursor to pass as "after" to retrieve the next page - null if there are no more matches
+ */
+public record SearchResult(List<String> names, String next) {
+}
@@ -0,0 +1,19 @@
+package com.motorola.fileserver.model;
+
+import java.time.Instant;
+
+/**
+ * Notification that a file has been stored or deleted
+ *
+ * @param type       The operation that was performed
+ * @param filename   Name of the affected file, relative to the storage location
+ * @param replicated True if the operation was received from a peer node rather than performed locally
+ * @param expiresAt  When a stored file is due to be deleted - null if it is kept until deleted explicitly
+ */
+public record StorageEvent(OperationType type, String filename, boolean replicated, Instant expiresAt) {
+
+    public StorageEvent(OperationType type, String filename, boolean replicated) {
+        this(type, filename, replicated, null);
+    }
+
+}
@@ -0,0 +1,260 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.config.ExpiryProperties;
+import com.motorola.fileserver.exception.StorageException;
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.StorageEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks when files uploaded with a time-to-live are due to be deleted, kept in sync from store/delete events.
+ * Deadlines are held in a {@link TimingWheel}, so finding the expired files never involves scanning the others.
+ * Every change is appended to a binary journal of (deadline, filename) records, which is replayed into a new wheel
+ * on startup and rewritten without superseded records once they outnumber the live ones.
+ */
+@Component
+public class ExpirySchedule implements StorageEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpirySchedule.class);
+    private static final String JOURNAL_FILENAME = "schedule.journal";
+
+    // journal record types - a scheduled record is followed by its deadline in epoch millis, both by the filename
+    private static final byte SCHEDULED = 1;
+    private static final byte CANCELLED = 0;
+
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private final Path location;
+    private final Path journalFile;
+    private final long tickMillis;
+    private final TimingWheel wheel;
+
+    // expired files waiting to be taken for deletion, in expiry order
+    private final Set<String> expired = new LinkedHashSet<>();
+
+    // expired files taken for deletion that have not been stored or deleted since
+    private final Set<String> taken = new HashSet<>();
+
+    // deadline of every scheduled or expired file, as persisted in the journal
+    private final Map<String, Long> deadlines = new HashMap<>();
+
+    private DataOutputStream journal;
+    private long journalRecords;
+
+    @Autowired
+    public ExpirySchedule(ExpiryProperties properties) {
+        this.location = Paths.get(properties.getLocation());
+        this.journalFile = location.resolve(JOURNAL_FILENAME);
+        this.tickMillis = properties.getTick().toMillis();
+        this.wheel = new TimingWheel(currentTick(Instant.now()));
+
+        try {
+            if (Files.exists(journalFile)) {
+                loadJournal();
+                compact();
+                LOGGER.info("Expiry schedule loaded with " + deadlines.size() + " files");
+            }
+        } catch (IOException e) {
+            throw new StorageException("Unable to load expiry schedule.", e);
+        }
+    }
+
+    /**
+     * Schedule or cancel expiry of a file - storing a file again replaces its time-to-live, so a file stored without
+     * one is no longer expired
+     */
+    @Override
+    public synchronized void onEvent(StorageEvent event) {
+        if (event.type() == OperationType.STORE && event.expiresAt() != null) {
+            schedule(event.filename(), event.expiresAt().toEpochMilli());
+        } else {
+            cancel(event.filename());
+        }
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Take the files that have expired by the given time, to be deleted without holding up store/delete events.
+     * A taken file stays in the schedule until it is deleted or released, and should only be deleted while it is
+     * still due - storing it again in the meantime gives it a new time-to-live, or none
+     *
+     * @param now   The current time
+     * @param limit Maximum number of files to take - files beyond the limit are kept for the next call
+     * @return the expired files, in expiry order
+     */
+    public synchronized List<String> takeExpired(Instant now, int limit) {
+        expired.addAll(wheel.advance(currentTick(now)));
+
+        List<String> filenames = new ArrayList<>(Math.min(limit, expired.size()));
+        Iterator<String> iterator = expired.iterator();
+
+        while (filenames.size() < limit && iterator.hasNext()) {
+            String filename = iterator.next();
+            iterator.remove();
+            taken.add(filename);
+            filenames.add(filename);
+        }
+
+        return filenames;
+    }
+
+    /**
+     * @return true if a taken file has not been stored or deleted since it was taken
+     */
+    public synchronized boolean isDue(String filename) {
+        return taken.contains(filename);
+    }
+
+    /**
+     * Drop a taken file from the schedule once it has been deleted or could not be. Deleting it normally does this
+     * through its delete event, but a file that could not be deleted must not be kept in the journal
+     */
+    public synchronized void release(String filename) {
+        if (taken.contains(filename)) {
+            cancel(filename);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close expiry schedule", e);
+        }
+    }
+
+    private void schedule(String filename, long deadlineMillis) {
+        expired.remove(filename);
+        taken.remove(filename);
+        wheel.schedule(filename, deadlineTick(deadlineMillis));
+        deadlines.put(filename, deadlineMillis);
+
+        writeRecord(SCHEDULED, deadlineMillis, filename);
+    }
+
+    private void cancel(String filename) {
+        expired.remove(filename);
+        taken.remove(filename);
+        wheel.cancel(filename);
+
+        if (deadlines.remove(filename) != null) {
+            writeRecord(CANCELLED, 0, filename);
+        }
+    }
+
+    private void writeRecord(byte type, long deadlineMillis, String filename) {
+        try {
+            if (journal == null) {
+                Files.createDirectories(location);
+                journal = openJournal(journalFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            journal.writeByte(type);
+            if (type == SCHEDULED) {
+                journal.writeLong(deadlineMillis);
+            }
+            journal.writeUTF(filename);
+            journal.flush();
+            journalRecords++;
+
+            if (journalRecords >= MIN_COMPACTION_RECORDS && journalRecords > 2L * deadlines.size()) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new StorageException("Unable to update expiry schedule.", e);
+        }
+    }
+
+    private void loadJournal() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            while (true) {
+                byte type = in.readByte();
+                long deadlineMillis = type == SCHEDULED ? in.readLong() : 0;
+                String filename = in.readUTF();
+
+                if (type == SCHEDULED) {
+                    deadlines.put(filename, deadlineMillis);
+                } else {
+                    deadlines.remove(filename);
+                }
+            }
+        } catch (EOFException e) {
+            // end of the journal, or a partially written last record after a crash
+        }
+
+        // anything that expired while the server was down is due on the first tick
+        deadlines.forEach((filename, deadlineMillis) -> wheel.schedule(filename, deadlineTick(deadlineMillis)));
+    }
+
+    /**
+     * Rewrite the journal so it holds a single record per scheduled file
+     */
+    private void compact() throws IOException {
+        Path tempFile = journalFile.resolveSibling(JOURNAL_FILENAME + ".tmp");
+
+        try (DataOutputStream out = openJournal(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Long> entry : deadlines.entrySet()) {
+                out.writeByte(SCHEDULED);
+                out.writeLong(entry.getValue());
+                out.writeUTF(entry.getKey());
+            }
+        }
+
+        if (journal != null) {
+            journal.close();
+        }
+        Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = openJournal(journalFile, StandardOpenOption.APPEND);
+        journalRecords = deadlines.size();
+    }
+
+    private static DataOutputStream openJournal(Path file, StandardOpenOption... options) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, options)));
+    }
+
+    private long currentTick(Instant now) {
+        return Math.floorDiv(now.toEpochMilli(), tickMillis);
+    }
+
+    /**
+     * Convert a deadline to a tick, rounding up so a file is never deleted before it expires
+     */
+    private long deadlineTick(long deadlineMillis) {
+        return Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+    }
+
+}
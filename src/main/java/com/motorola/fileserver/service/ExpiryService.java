@@ -0,0 +1,119 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.config.ExpiryProperties;
+import com.motorola.fileserver.exception.FileValidationException;
+import com.motorola.fileserver.exception.StorageException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes files once their time-to-live has passed. The {@link ExpirySchedule} is checked once per tick, and no more
+ * than the configured number of files are deleted per second so a large batch expiring together does not compete
+ * with uploads and downloads - any remaining files are deleted on the following ticks. Each file is only deleted if
+ * it has not been stored again since it expired, checked while the storage service holds off storing it.
+ */
+@Service
+public class ExpiryService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpiryService.class);
+
+    private final ExpiryProperties properties;
+    private final ExpirySchedule expirySchedule;
+    private final IStorageService storageService;
+
+    private ScheduledExecutorService scheduler;
+
+    // deletes allowed by the rate limit, carried over between ticks so a fraction of a delete per tick still adds up
+    private double allowance;
+    private Instant lastRun;
+
+    @Autowired
+    public ExpiryService(ExpiryProperties properties, ExpirySchedule expirySchedule, IStorageService storageService) {
+        this.properties = properties;
+        this.expirySchedule = expirySchedule;
+        this.storageService = storageService;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long tick = properties.getTick().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> deleteExpired(Instant.now()), tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Delete the files that have expired, as many as the rate limit allows. The allowance builds up at the configured
+     * rate while the service runs, up to one tick's worth (or a single delete, if a tick is worth less than one)
+     *
+     * @param now The current time
+     */
+    void deleteExpired(Instant now) {
+        double rate = properties.getMaxDeletesPerSecond();
+        double maxAllowance = Math.max(1, rate * properties.getTick().toMillis() / 1000);
+
+        if (lastRun == null) {
+            allowance = maxAllowance;
+        } else {
+            double elapsedSeconds = Math.max(0, Duration.between(lastRun, now).toNanos()) / 1_000_000_000.0;
+            allowance = Math.min(maxAllowance, allowance + rate * elapsedSeconds);
+        }
+        lastRun = now;
+
+        try {
+            List<String> expired = expirySchedule.takeExpired(now, (int) Math.min(allowance, Integer.MAX_VALUE));
+            allowance -= expired.size();
+
+            long deleted = expired.stream().filter(this::deleteFile).count();
+
+            if (deleted > 0) {
+                LOGGER.debug("Deleted " + deleted + " expired files");
+            }
+        } catch (RuntimeException e) {
+            // the scheduled task must never be cancelled by an exception
+            LOGGER.error("Unable to delete expired files", e);
+        }
+    }
+
+    /**
+     * @return true if the file was deleted
+     */
+    private boolean deleteFile(String filename) {
+        try {
+            if (storageService.deleteIf(filename, () -> expirySchedule.isDue(filename))) {
+                LOGGER.info("Deleted expired file: " + filename);
+                return true;
+            }
+
+            LOGGER.debug("Expired file " + filename + " was stored again - not deleted");
+        } catch (StorageException | FileValidationException e) {
+            // most likely deleted already - the file is dropped from the schedule either way
+            LOGGER.warn("Unable to delete expired file " + filename + ": " + e.getMessage());
+        } finally {
+            expirySchedule.release(filename);
+        }
+
+        return false;
+    }
+
+}
@@ -2,7 +2,11 @@ package com.motorola.fileserver.service;
 
 import com.motorola.fileserver.config.StorageProperties;
 import com.motorola.fileserver.exception.DownloadException;
+import com.motorola.fileserver.exception.FileTooLargeException;
+import com.motorola.fileserver.exception.FileValidationException;
 import com.motorola.fileserver.exception.StorageException;
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.StorageEvent;
 import com.motorola.fileserver.util.FileValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,14 +19,20 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
 /**
@@ -32,10 +42,23 @@ import java.util.stream.Stream;
 public class FileSystemStorageService implements IStorageService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemStorageService.class);
+
+    // changes to a file and the event published for them are made under one of these locks, chosen by filename, so
+    // listeners always see the events for a file in the order its changes were made
+    private static final int LOCK_STRIPES = 256;
+
     private final Path rootLocation;
+    private final List<StorageEventListener> listeners;
+    private final Object[] locks = new Object[LOCK_STRIPES];
 
-    @Autowired
     public FileSystemStorageService(StorageProperties properties) {
+        this(properties, List.of());
+    }
+
+    @Autowired
+    public FileSystemStorageService(StorageProperties properties, List<StorageEventListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+        Arrays.setAll(this.locks, ignored -> new Object());
         String defaultLocation = properties.getLocation();
 
         if (defaultLocation.trim().isBlank()) {
@@ -59,18 +82,36 @@ public class FileSystemStorageService implements IStorageService {
      */
     @Override
     public void store(MultipartFile file) {
+        store(file, null);
+    }
+
+    /**
+     * Stores a multipart file to the root directory, to be deleted automatically once its time-to-live has passed
+     *
+     * @param file MultipartFile received in the request. Must not be empty and must have a valid filename
+     * @param ttl  How long the file is kept for - null to keep it until deleted
+     */
+    @Override
+    public void store(MultipartFile file, Duration ttl) {
         try {
             String filename = FileValidator.getValidFileForUpload(file);
+            FileValidator.validateTimeToLive(ttl);
             LOGGER.debug("Filename to upload: " + filename);
 
-            // use .normalize() to sanitise the the filepath and avoid directory traversal attacks
-            Path destinationFile = this.rootLocation.resolve(Paths.get(filename))
-                    .normalize().toAbsolutePath();
+            // reject any filepath outside the root directory to avoid directory traversal attacks
+            Path destinationFile = resolveStoredFile(filename);
             LOGGER.trace("Destination file absolute path: " + destinationFile);
 
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.createDirectories(destinationFile.getParent());
-                Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+            String storedName = storedName(destinationFile);
+
+            synchronized (lockFor(storedName)) {
+                try (InputStream inputStream = file.getInputStream()) {
+                    Files.createDirectories(destinationFile.getParent());
+                    Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                Instant expiresAt = ttl != null ? Instant.now().plus(ttl) : null;
+                publish(new StorageEvent(OperationType.STORE, storedName, false, expiresAt));
             }
         } catch (IOException e) {
             throw new StorageException("Failed to store file.", e);
@@ -90,16 +131,9 @@ public class FileSystemStorageService implements IStorageService {
     public ResponseEntity<Resource> download(String filename) {
 
         try {
-            FileValidator.validateFilename(filename);
             LOGGER.debug("Filename to download: " + filename);
 
-            Path filePath = this.rootLocation.resolve(filename).normalize().toAbsolutePath();
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (!resource.exists()) {
-                throw new DownloadException("File " + filename + " does not exist.");
-            }
-
+            Resource resource = loadAsResource(filename);
             String contentType = Files.probeContentType(resource.getFile().toPath());
 
             if (contentType == null) {
@@ -113,13 +147,33 @@ public class FileSystemStorageService implements IStorageService {
                             resource.getFilename() + "\"")
                     .body(resource);
 
-        } catch (MalformedURLException e) {
-            throw new DownloadException("Filename provided cannot be found.", e);
         } catch (IOException e) {
             throw new DownloadException("Unable to download file.", e);
         }
     }
 
+    /**
+     * Load a stored file by filename
+     *
+     * @param filename String representing the name of the file to be loaded
+     * @return the file as a resource - guaranteed to exist at the time of the call
+     */
+    @Override
+    public Resource loadAsResource(String filename) {
+        try {
+            Path filePath = resolveStoredFile(filename);
+            Resource resource = new UrlResource(filePath.toUri());
+
+            if (!resource.exists()) {
+                throw new DownloadException("File " + filename + " does not exist.");
+            }
+
+            return resource;
+        } catch (MalformedURLException e) {
+            throw new DownloadException("Filename provided cannot be found.", e);
+        }
+    }
+
     /**
      * Process the request to delete a given file by filename.
      *
@@ -127,18 +181,100 @@ public class FileSystemStorageService implements IStorageService {
      */
     @Override
     public void delete(String filename) {
+        deleteIf(filename, () -> true);
+    }
+
+    /**
+     * Delete a given file by filename, provided a condition still holds once the file can no longer be stored again
+     * until the delete completes
+     *
+     * @param filename  String representing the name of the file to be deleted
+     * @param condition Checked before the file is deleted - the file is kept if it returns false
+     * @return true if the file was deleted
+     */
+    @Override
+    public boolean deleteIf(String filename, BooleanSupplier condition) {
         try {
-            FileValidator.validateFilename(filename);
+            Path filePath = resolveStoredFile(filename);
             LOGGER.debug("Filename to delete: " + filename);
 
-            Path filePath = this.rootLocation.resolve(filename).normalize().toAbsolutePath();
-            Files.delete(filePath);
+            String storedName = storedName(filePath);
 
+            synchronized (lockFor(storedName)) {
+                if (!condition.getAsBoolean()) {
+                    return false;
+                }
+
+                Files.delete(filePath);
+                publish(new StorageEvent(OperationType.DELETE, storedName, false));
+            }
+
+            return true;
         } catch (IOException e) {
             throw new StorageException("Unable to delete file", e);
         }
     }
 
+    /**
+     * Stores the content of a file received from a peer node, atomically replacing any existing file of the same name
+     *
+     * @param filename String representing the name of the file to be stored
+     * @param content  Stream of the file content
+     * @param maxSize  Maximum size of the file in bytes - the file is rejected as soon as the stream exceeds it
+     */
+    @Override
+    public void storeReplica(String filename, InputStream content, long maxSize) {
+        try {
+            Path destinationFile = resolveStoredFile(filename);
+            LOGGER.debug("Filename to store from peer: " + filename);
+
+            String storedName = storedName(destinationFile);
+
+            // receive into a temporary file first, so a transfer cut off part way never replaces the existing copy
+            Files.createDirectories(destinationFile.getParent());
+            Path tempFile = Files.createTempFile(destinationFile.getParent(),
+                    "." + destinationFile.getFileName(), ".replica.tmp");
+
+            try {
+                copyAtMost(content, tempFile, maxSize);
+
+                synchronized (lockFor(storedName)) {
+                    Files.move(tempFile, destinationFile, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    publish(new StorageEvent(OperationType.STORE, storedName, true));
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to store replicated file.", e);
+        }
+    }
+
+    /**
+     * Deletes a file as instructed by a peer node. A file that does not exist is ignored, as the same delete may be
+     * received more than once
+     *
+     * @param filename String representing the name of the file to be deleted
+     */
+    @Override
+    public void deleteReplica(String filename) {
+        try {
+            Path filePath = resolveStoredFile(filename);
+            LOGGER.debug("Filename to delete from peer: " + filename);
+
+            String storedName = storedName(filePath);
+
+            synchronized (lockFor(storedName)) {
+                if (Files.deleteIfExists(filePath)) {
+                    publish(new StorageEvent(OperationType.DELETE, storedName, true));
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException("Unable to delete replicated file", e);
+        }
+    }
+
     /**
      * List all file paths starting from the root directory
      *
@@ -155,4 +291,85 @@ public class FileSystemStorageService implements IStorageService {
         }
     }
 
+    /**
+     * List the names of all stored files, including those in subdirectories, in the same form as the filenames
+     * published to {@link StorageEventListener}s
+     *
+     * @return a list of file paths relative to the root directory, separated by '/'
+     */
+    @Override
+    public List<String> retrieveStoredFilenames() {
+        Path root = this.rootLocation.normalize().toAbsolutePath();
+
+        try (Stream<Path> filesStream = Files.walk(root)) {
+            return filesStream.filter(Files::isRegularFile).map(this::storedName).toList();
+        } catch (IOException e) {
+            throw new StorageException("Unable to retrieve stored filenames", e);
+        }
+    }
+
+    /**
+     * Name a stored file relative to the root directory, so the same file is always published under the same name
+     * however it was requested, e.g. "./a.txt" and "dir/../a.txt" are both "a.txt"
+     */
+    private String storedName(Path file) {
+        Path root = this.rootLocation.toAbsolutePath().normalize();
+        Path relative = root.relativize(file.toAbsolutePath().normalize());
+
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Copy a stream to a file, failing once more than the given number of bytes have been read
+     */
+    private static void copyAtMost(InputStream content, Path file, long maxSize) throws IOException {
+        byte[] buffer = new byte[8192];
+        long size = 0;
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                size += read;
+                if (size > maxSize) {
+                    throw new FileTooLargeException("File exceeds the maximum size of " + maxSize + " bytes.");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private Object lockFor(String storedName) {
+        return locks[Math.floorMod(storedName.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Resolve a filename to a path under the root directory, rejecting any that would point outside it - such a file
+     * could not be replicated, as peers reject it too
+     */
+    private Path resolveStoredFile(String filename) {
+        FileValidator.validateFilename(filename);
+
+        Path root = this.rootLocation.normalize().toAbsolutePath();
+        Path filePath = root.resolve(filename).normalize();
+
+        if (!filePath.startsWith(root) || filePath.equals(root)) {
+            throw new FileValidationException("Invalid filename.");
+        }
+
+        return filePath;
+    }
+
+    /**
+     * Notify listeners of a change - a failing listener must not fail the operation that has already completed
+     */
+    private void publish(StorageEvent event) {
+        for (StorageEventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                LOGGER.error("Storage event listener failed for " + event, e);
+            }
+        }
+    }
+
 }
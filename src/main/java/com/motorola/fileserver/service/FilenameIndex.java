@@ -0,0 +1,243 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.SearchResult;
+import com.motorola.fileserver.model.StorageEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of stored filenames, kept in sync from store/delete events.
+ * Names are held in a sorted set for prefix lookups, and every name is also listed under each of its substrings of up
+ * to 3 characters, so substring and glob lookups only need to examine names sharing the query's rarest trigram - or,
+ * for a query shorter than a trigram, the names containing it. Candidates are visited in name order, so a page of
+ * results is complete as soon as it is full.
+ */
+@Component
+public class FilenameIndex implements StorageEventListener {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<>();
+    private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEvent(StorageEvent event) {
+        if (event.type() == OperationType.STORE) {
+            add(event.filename());
+        } else {
+            remove(event.filename());
+        }
+    }
+
+    // updates are serialised so a name and its grams always change together - searches do not lock
+    public synchronized void add(String name) {
+        if (names.add(name)) {
+            for (String gram : indexedGrams(name)) {
+                Posting posting = postings.computeIfAbsent(gram, ignored -> new Posting());
+                if (posting.names.add(name)) {
+                    posting.size++;
+                }
+            }
+        }
+    }
+
+    public synchronized void remove(String name) {
+        if (names.remove(name)) {
+            for (String gram : indexedGrams(name)) {
+                Posting posting = postings.get(gram);
+                if (posting.names.remove(name)) {
+                    posting.size--;
+                }
+
+                if (posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Find names starting with the given prefix
+     *
+     * @param after Only return names ordered after this one - null to start from the beginning
+     * @param limit Maximum number of names to return
+     */
+    public SearchResult searchPrefix(String prefix, String after, int limit) {
+        return collect(prefixRange(prefix, after), name -> true, limit);
+    }
+
+    /**
+     * Find names containing the given substring
+     *
+     * @param after Only return names ordered after this one - null to start from the beginning
+     * @param limit Maximum number of names to return
+     */
+    public SearchResult searchSubstring(String substring, String after, int limit) {
+        NavigableSet<String> candidates = rarestPosting(List.of(substring));
+        return collect(from(candidates != null ? candidates : names, after), name -> name.contains(substring), limit);
+    }
+
+    /**
+     * Find names matching a glob pattern, where '*' matches any sequence of characters and '?' any single character
+     *
+     * @param after Only return names ordered after this one - null to start from the beginning
+     * @param limit Maximum number of names to return
+     */
+    public SearchResult searchGlob(String glob, String after, int limit) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        List<String> literals = new ArrayList<>();
+
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                regex.append(Pattern.quote(literal.toString())).append(c == '*' ? ".*" : ".");
+                literals.add(literal.toString());
+                literal.setLength(0);
+            } else {
+                literal.append(c);
+            }
+        }
+        regex.append(Pattern.quote(literal.toString()));
+        literals.add(literal.toString());
+
+        Pattern pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+        Predicate<String> matches = name -> pattern.matcher(name).matches();
+
+        // narrow the candidates by the rarest trigram of any literal part, otherwise by the leading literal part, or if
+        // that is empty by the rarest of the shorter literal parts - only a pattern of wildcards examines every name
+        NavigableSet<String> candidates = rarestPosting(
+                literals.stream().filter(part -> part.length() >= GRAM_LENGTH).toList());
+        if (candidates == null && literals.get(0).isEmpty()) {
+            candidates = rarestPosting(literals);
+        }
+        candidates = candidates != null ? from(candidates, after) : prefixRange(literals.get(0), after);
+
+        return collect(candidates, matches, limit);
+    }
+
+    /**
+     * Find the smallest set of names containing one of the grams of the given literals
+     *
+     * @return the names, an empty set if some gram has no names, or null if every literal is empty
+     */
+    private NavigableSet<String> rarestPosting(List<String> literals) {
+        NavigableSet<String> rarest = null;
+        int rarestSize = Integer.MAX_VALUE;
+
+        for (String literal : literals) {
+            for (String gram : grams(literal)) {
+                Posting posting = postings.get(gram);
+
+                if (posting == null) {
+                    return new ConcurrentSkipListSet<>();
+                }
+
+                if (posting.size < rarestSize) {
+                    rarest = posting.names;
+                    rarestSize = posting.size;
+                }
+            }
+        }
+
+        return rarest;
+    }
+
+    /**
+     * Names starting with the given prefix, ordered after the given name if there is one
+     */
+    private NavigableSet<String> prefixRange(String prefix, String after) {
+        String upper = prefix + Character.MAX_VALUE;
+
+        if (after == null || after.compareTo(prefix) < 0) {
+            return names.subSet(prefix, true, upper, true);
+        }
+        if (after.compareTo(upper) >= 0) {
+            return Collections.emptyNavigableSet();
+        }
+        return names.subSet(after, false, upper, true);
+    }
+
+    private static NavigableSet<String> from(NavigableSet<String> set, String after) {
+        return after == null ? set : set.tailSet(after, false);
+    }
+
+    /**
+     * Collect a page of matching names, stopping as soon as the page is full and another match shows there are more
+     */
+    private SearchResult collect(Iterable<String> candidates, Predicate<String> matches, int limit) {
+        List<String> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<String> iterator = candidates.iterator();
+
+        while (iterator.hasNext()) {
+            String name = iterator.next();
+
+            // a candidate may have been deleted while its grams were being removed
+            if (!matches.test(name) || !names.contains(name)) {
+                continue;
+            }
+
+            if (page.size() == limit) {
+                return new SearchResult(page, page.get(limit - 1));
+            }
+            page.add(name);
+        }
+
+        return new SearchResult(page, null);
+    }
+
+    /**
+     * The grams a name is listed under - every substring of 1 to 3 characters, so a query of any length has a gram
+     */
+    private static Set<String> indexedGrams(String name) {
+        Set<String> grams = new LinkedHashSet<>();
+
+        for (int i = 0; i < name.length(); i++) {
+            for (int length = 1; length <= GRAM_LENGTH && i + length <= name.length(); length++) {
+                grams.add(name.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * The grams looked up for a query - its trigrams, or the whole query if it is shorter than a trigram
+     */
+    private static Set<String> grams(String value) {
+        if (value.length() < GRAM_LENGTH) {
+            return value.isEmpty() ? Set.of() : Set.of(value);
+        }
+
+        Set<String> grams = new LinkedHashSet<>();
+
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Names containing a single gram - the size is tracked separately as counting a skip list is not constant time
+     */
+    private static final class Posting {
+        private final ConcurrentSkipListSet<String> names = new ConcurrentSkipListSet<>();
+        private volatile int size;
+    }
+
+}
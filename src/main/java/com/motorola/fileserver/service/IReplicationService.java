@@ -0,0 +1,14 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.model.ReplicationBatch;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+
+public interface IReplicationService {
+
+    void apply(ReplicationBatch batch);
+
+    Optional<ResponseEntity<Resource>> downloadFromPeer(String filename);
+}
@@ -0,0 +1,8 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.model.SearchResult;
+
+public interface ISearchService {
+
+    SearchResult search(String prefix, String substring, String glob, String after, int limit);
+}
@@ -4,15 +4,30 @@ import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 public interface IStorageService {
 
     void store(MultipartFile file);
 
+    void store(MultipartFile file, Duration ttl);
+
     ResponseEntity<Resource> download(String filename);
 
     void delete(String filename);
 
+    boolean deleteIf(String filename, BooleanSupplier condition);
+
     List<String> retrieveFilesList();
+
+    List<String> retrieveStoredFilenames();
+
+    Resource loadAsResource(String filename);
+
+    void storeReplica(String filename, InputStream content, long maxSize);
+
+    void deleteReplica(String filename);
 }
@@ -0,0 +1,367 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.config.ReplicationProperties;
+import com.motorola.fileserver.exception.StorageException;
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.StorageEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Append-only log of the store/delete operations performed on this node, kept until every peer has acknowledged them.
+ * Both the pending operations and each peer's acknowledged position are persisted in the log location, so shipping
+ * resumes where it left off after either this node or a peer restarts. At most the configured number of operations
+ * are kept - the oldest are dropped beyond that, and a peer that had not acknowledged them needs a full resync.
+ */
+@Component
+public class OperationLog implements StorageEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperationLog.class);
+    private static final String LOG_FILENAME = "operations.log";
+    private static final String POSITIONS_FILENAME = "positions.properties";
+
+    // stored alongside the peer positions - not a URL, so it cannot clash with a peer
+    private static final String TRUNCATED_KEY = "truncated";
+
+    // number of acknowledged entries dropped from memory before the log file is rewritten without them
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    private final List<String> peers;
+    private final int maxPendingOperations;
+    private final Path logFile;
+    private final Path positionsFile;
+    private final ConcurrentSkipListMap<Long, Entry> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> positions = new ConcurrentHashMap<>();
+
+    private BufferedWriter writer;
+    private long lastSequence;
+    private int droppedSinceCompaction;
+
+    // tracked separately, as counting a skip list is not constant time
+    private int pendingCount;
+
+    // highest sequence number dropped before every peer acknowledged it - a peer behind it has missed operations
+    private volatile long truncatedSequence;
+
+    @Autowired
+    public OperationLog(ReplicationProperties properties) {
+        this.peers = properties.getPeers().stream().map(OperationLog::normalizePeer).distinct().toList();
+        this.maxPendingOperations = properties.getMaxPendingOperations();
+
+        Path location = Paths.get(properties.getLogLocation());
+        this.logFile = location.resolve(LOG_FILENAME);
+        this.positionsFile = location.resolve(POSITIONS_FILENAME);
+
+        // without peers there is nobody to ship to, so nothing is recorded
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(location);
+            loadPositions();
+            boolean intact = loadEntries();
+            dropAcknowledged();
+            dropOverflow();
+
+            // rewrite a damaged log, otherwise the next append would continue a partially written line
+            if (intact) {
+                this.writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } else {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new StorageException("Unable to open replication log.", e);
+        }
+
+        LOGGER.info("Replication log opened with " + entries.size() + " pending operations for peers " + peers);
+    }
+
+    public boolean isEnabled() {
+        return !peers.isEmpty();
+    }
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    /**
+     * Record operations performed locally - operations received from peers are not recorded again, which keeps
+     * them from being shipped back and forth between nodes
+     */
+    @Override
+    public void onEvent(StorageEvent event) {
+        if (isEnabled() && !event.replicated()) {
+            append(event.type(), event.filename());
+        }
+    }
+
+    /**
+     * Retrieve the next operations to ship to a given peer
+     *
+     * @param peer  Base URL of the peer
+     * @param limit Maximum number of operations to return
+     * @return operations after the peer's acknowledged position, in log order - none if the peer needs a resync
+     */
+    public List<Entry> readAfter(String peer, int limit) {
+        List<Entry> pending = entries.tailMap(getPosition(peer), false).values().stream().limit(limit).toList();
+
+        // operations may have been dropped while reading, in which case the peer needs a resync instead
+        return needsResync(peer) ? List.of() : pending;
+    }
+
+    /**
+     * @return true if operations were dropped before the peer acknowledged them, so it has to be sent every stored
+     * file before shipping can continue from {@link #getTruncatedSequence()}
+     */
+    public boolean needsResync(String peer) {
+        return getPosition(peer) < truncatedSequence;
+    }
+
+    public long getTruncatedSequence() {
+        return truncatedSequence;
+    }
+
+    public long getPosition(String peer) {
+        return positions.getOrDefault(peer, 0L);
+    }
+
+    /**
+     * Record that a peer has applied all operations up to and including the given sequence number
+     */
+    public synchronized void acknowledge(String peer, long sequence) {
+        positions.merge(peer, sequence, Math::max);
+
+        try {
+            savePositions();
+            dropAcknowledged();
+
+            if (droppedSinceCompaction >= COMPACTION_THRESHOLD) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new StorageException("Unable to update replication log.", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to close replication log", e);
+        }
+    }
+
+    private synchronized void append(OperationType type, String filename) {
+        Entry entry = new Entry(++lastSequence, type, filename);
+
+        try {
+            writer.write(formatLine(entry));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new StorageException("Unable to append to replication log.", e);
+        }
+
+        entries.put(entry.sequence(), entry);
+        pendingCount++;
+
+        try {
+            dropOverflow();
+        } catch (IOException e) {
+            throw new StorageException("Unable to update replication log.", e);
+        }
+    }
+
+    /**
+     * @return false if the log has unreadable lines or does not end with a complete line
+     */
+    private boolean loadEntries() throws IOException {
+        if (!Files.exists(logFile)) {
+            return true;
+        }
+
+        String content = Files.readString(logFile, StandardCharsets.UTF_8);
+        boolean intact = content.isEmpty() || content.endsWith("\n");
+
+        for (String line : content.lines().toList()) {
+            String[] fields = line.split("\t");
+
+            // skip anything unreadable, e.g. a partially written last line after a crash
+            try {
+                long sequence = Long.parseLong(fields[0]);
+                OperationType type = OperationType.valueOf(fields[1]);
+                String filename = URLDecoder.decode(fields[2], StandardCharsets.UTF_8);
+                if (entries.put(sequence, new Entry(sequence, type, filename)) == null) {
+                    pendingCount++;
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                LOGGER.warn("Skipping unreadable replication log line: " + line);
+                intact = false;
+            }
+        }
+
+        return intact;
+    }
+
+    private void loadPositions() throws IOException {
+        if (!Files.exists(positionsFile)) {
+            return;
+        }
+
+        Properties stored = new Properties();
+        try (Reader reader = Files.newBufferedReader(positionsFile, StandardCharsets.UTF_8)) {
+            stored.load(reader);
+        }
+
+        truncatedSequence = Long.parseLong(stored.getProperty(TRUNCATED_KEY, "0"));
+        lastSequence = Math.max(lastSequence, truncatedSequence);
+        stored.remove(TRUNCATED_KEY);
+
+        for (String peer : stored.stringPropertyNames()) {
+            long position = Long.parseLong(stored.getProperty(peer));
+            positions.put(peer, position);
+
+            // the log may have been compacted to nothing, so continue numbering after everything acknowledged
+            lastSequence = Math.max(lastSequence, position);
+        }
+    }
+
+    private void savePositions() throws IOException {
+        Properties stored = new Properties();
+        positions.forEach((peer, position) -> stored.setProperty(peer, Long.toString(position)));
+        stored.setProperty(TRUNCATED_KEY, Long.toString(truncatedSequence));
+
+        Path tempFile = positionsFile.resolveSibling(POSITIONS_FILENAME + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            stored.store(out, null);
+        }
+        Files.move(tempFile, positionsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove entries from memory once every peer has acknowledged them
+     */
+    private void dropAcknowledged() {
+        long acknowledgedByAll = peers.stream().mapToLong(this::getPosition).min().orElse(0L);
+
+        while (!entries.isEmpty() && entries.firstKey() <= acknowledgedByAll) {
+            entries.pollFirstEntry();
+            pendingCount--;
+            droppedSinceCompaction++;
+        }
+    }
+
+    /**
+     * Drop the oldest entries beyond the retention limit, whether or not every peer has acknowledged them
+     */
+    private void dropOverflow() throws IOException {
+        int overflow = pendingCount - maxPendingOperations;
+
+        if (overflow <= 0) {
+            return;
+        }
+
+        long truncated = 0;
+        Iterator<Long> sequences = entries.keySet().iterator();
+        for (int i = 0; i < overflow; i++) {
+            truncated = sequences.next();
+        }
+
+        List<String> inSync = peers.stream().filter(peer -> !needsResync(peer)).toList();
+
+        // recorded before the entries go, so a concurrent readAfter never misses them without noticing
+        truncatedSequence = Math.max(truncatedSequence, truncated);
+
+        for (int i = 0; i < overflow; i++) {
+            entries.pollFirstEntry();
+        }
+        pendingCount -= overflow;
+        droppedSinceCompaction += overflow;
+
+        for (String peer : inSync) {
+            if (needsResync(peer)) {
+                LOGGER.warn("Peer " + peer + " is more than " + maxPendingOperations
+                        + " operations behind - it will be sent a full copy of the stored files");
+            }
+        }
+
+        if (droppedSinceCompaction >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite the log file so it only contains the entries still pending for at least one peer
+     */
+    private void compact() throws IOException {
+        // the dropped entries can no longer be reloaded from the log, so the truncation point must be saved first
+        savePositions();
+
+        Path tempFile = logFile.resolveSibling(LOG_FILENAME + ".tmp");
+
+        try (BufferedWriter out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            for (Entry entry : entries.values()) {
+                out.write(formatLine(entry));
+                out.newLine();
+            }
+        }
+
+        if (writer != null) {
+            writer.close();
+        }
+        Files.move(tempFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        LOGGER.debug("Compacted replication log to " + entries.size() + " pending operations");
+        droppedSinceCompaction = 0;
+    }
+
+    private static String formatLine(Entry entry) {
+        // filenames are encoded so they can never contain the field separator or a line break
+        return entry.sequence() + "\t" + entry.type() + "\t"
+                + URLEncoder.encode(entry.filename(), StandardCharsets.UTF_8);
+    }
+
+    static String normalizePeer(String peer) {
+        String trimmed = peer.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    /**
+     * A single logged operation
+     */
+    public record Entry(long sequence, OperationType type, String filename) {
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.config.ReplicationProperties;
+import com.motorola.fileserver.exception.DownloadException;
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.ReplicationBatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronously replicates store/delete operations to peer nodes, and applies operations received from peers.
+ * Each peer is shipped to independently from its last acknowledged position in the {@link OperationLog}, so an
+ * unreachable peer is retried with backoff and caught up once it is back without holding up the others. Consecutive
+ * deletes are sent in batches, while stored files are streamed to the peer one at a time.
+ */
+@Service
+public class ReplicationService implements IReplicationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationService.class);
+    static final String DELETES_PATH = "/replication/deletes";
+    static final String FILES_PATH = "/replication/files?filename={filename}";
+
+    private final ReplicationProperties properties;
+    private final OperationLog operationLog;
+    private final IStorageService storageService;
+    private final RestClient restClient;
+    private final RestClient failoverClient;
+    private final Map<String, PeerState> peerStates = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ReplicationService(ReplicationProperties properties, OperationLog operationLog,
+                              IStorageService storageService, RestClient.Builder restClientBuilder) {
+        this.properties = properties;
+        this.operationLog = operationLog;
+        this.storageService = storageService;
+        this.restClient = restClientBuilder.clone()
+                .requestFactory(requestFactory(properties.getTimeout()))
+                .build();
+        this.failoverClient = restClientBuilder.clone()
+                .requestFactory(requestFactory(properties.getReadFailoverTimeout()))
+                .build();
+
+        operationLog.getPeers().forEach(peer -> peerStates.put(peer, new PeerState()));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!operationLog.isEnabled()) {
+            LOGGER.info("No replication peers configured - replication disabled");
+            return;
+        }
+
+        List<String> peers = operationLog.getPeers();
+        scheduler = Executors.newScheduledThreadPool(peers.size(), runnable -> {
+            Thread thread = new Thread(runnable, "replication");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long interval = properties.getShipInterval().toMillis();
+        for (String peer : peers) {
+            scheduler.scheduleWithFixedDelay(() -> ship(peer), interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Apply a batch of deletes received from a peer, in order. Deletes may be received more than once after a
+     * failed acknowledgement, so a file that no longer exists is ignored
+     *
+     * @param batch The deletes to apply
+     */
+    @Override
+    public void apply(ReplicationBatch batch) {
+        batch.deletes().forEach(storageService::deleteReplica);
+    }
+
+    /**
+     * Fetch a file that is missing locally from the first peer that has it. Peers that recently failed are skipped,
+     * so an unreachable peer does not hold up every download of a file that exists nowhere
+     *
+     * @param filename String representing the name of the file to be downloaded
+     * @return a response entity wrapper streaming the file from the peer, or empty if no peer could provide it
+     */
+    @Override
+    public Optional<ResponseEntity<Resource>> downloadFromPeer(String filename) {
+        if (!properties.isReadFailover()) {
+            return Optional.empty();
+        }
+
+        for (String peer : operationLog.getPeers()) {
+            PeerState state = peerStates.get(peer);
+
+            if (state.isBackingOff()) {
+                continue;
+            }
+
+            try {
+                // the response is left open so its body can be streamed to the client, which closes it
+                ResponseEntity<Resource> response = failoverClient.get()
+                        .uri(peer + FILES_PATH, filename)
+                        .exchange((request, peerResponse) -> {
+                            if (!peerResponse.getStatusCode().is2xxSuccessful()) {
+                                peerResponse.close();
+                                return null;
+                            }
+                            return toDownload(filename, peerResponse.getHeaders(), peerResponse.getBody());
+                        }, false);
+
+                if (response != null) {
+                    LOGGER.info("File " + filename + " not found locally - served from peer " + peer);
+                    return Optional.of(response);
+                }
+            } catch (ResourceAccessException e) {
+                state.recordFailure(peer, e);
+            } catch (RestClientException e) {
+                LOGGER.debug("Peer " + peer + " unable to provide file " + filename + ": " + e.getMessage());
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Ship all pending operations to a peer, stopping at the first failure that may be temporary. An operation the
+     * peer rejects outright (a 4xx response) would be rejected on every retry, so it is logged and skipped instead of
+     * holding up everything after it
+     */
+    void ship(String peer) {
+        PeerState state = peerStates.get(peer);
+
+        if (state.isBackingOff()) {
+            return;
+        }
+
+        try {
+            if (operationLog.needsResync(peer)) {
+                resync(peer);
+            }
+
+            List<OperationLog.Entry> entries = operationLog.readAfter(peer, properties.getBatchSize());
+
+            while (!entries.isEmpty()) {
+                List<String> deletes = new ArrayList<>();
+
+                // deletes are batched up to the next store, so the peer still applies everything in log order
+                for (OperationLog.Entry entry : entries) {
+                    if (entry.type() == OperationType.DELETE) {
+                        deletes.add(entry.filename());
+                    } else {
+                        sendDeletes(peer, deletes);
+                        deletes.clear();
+                        sendFile(peer, entry.filename());
+                    }
+                }
+                sendDeletes(peer, deletes);
+
+                long sequence = entries.get(entries.size() - 1).sequence();
+                operationLog.acknowledge(peer, sequence);
+                LOGGER.debug("Peer " + peer + " acknowledged operations up to " + sequence);
+                state.recordSuccess(peer);
+
+                entries = operationLog.readAfter(peer, properties.getBatchSize());
+            }
+        } catch (RuntimeException e) {
+            // also covers local failures, so the scheduled task is never cancelled by an exception
+            state.recordFailure(peer, e);
+        }
+    }
+
+    /**
+     * Send every stored file to a peer that fell too far behind for the operation log to catch it up, then continue
+     * shipping from the oldest operation still held. Files deleted while the peer was behind are not deleted on it
+     */
+    private void resync(String peer) {
+        // taken before listing the files, so every operation up to it is reflected in the files sent
+        long truncatedSequence = operationLog.getTruncatedSequence();
+        List<String> filenames = storageService.retrieveStoredFilenames();
+        LOGGER.info("Resynchronising peer " + peer + " with " + filenames.size() + " stored files");
+
+        for (String filename : filenames) {
+            sendFile(peer, filename);
+        }
+
+        operationLog.acknowledge(peer, truncatedSequence);
+        LOGGER.info("Peer " + peer + " resynchronised");
+    }
+
+    private void sendDeletes(String peer, List<String> deletes) {
+        if (deletes.isEmpty()) {
+            return;
+        }
+
+        try {
+            restClient.post()
+                    .uri(peer + DELETES_PATH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new ReplicationBatch(List.copyOf(deletes)))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (HttpClientErrorException e) {
+            if (deletes.size() == 1) {
+                LOGGER.warn("Peer " + peer + " rejected delete of " + deletes.get(0) + " - skipped: "
+                        + e.getStatusCode());
+                return;
+            }
+
+            // deletes are idempotent, so send them one at a time to skip only the one that was rejected
+            deletes.forEach(filename -> sendDeletes(peer, List.of(filename)));
+        }
+    }
+
+    /**
+     * Stream the current content of a stored file to a peer - a file stored several times is only sent as it is now
+     */
+    private void sendFile(String peer, String filename) {
+        Resource resource;
+
+        try {
+            resource = storageService.loadAsResource(filename);
+        } catch (DownloadException e) {
+            // deleted since it was stored, and the delete follows in the log
+            LOGGER.debug("File " + filename + " no longer exists - not shipped");
+            return;
+        }
+
+        try {
+            restClient.put()
+                    .uri(peer + FILES_PATH, filename)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(outputStream -> {
+                        try (InputStream inputStream = resource.getInputStream()) {
+                            inputStream.transferTo(outputStream);
+                        }
+                    })
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (HttpClientErrorException e) {
+            LOGGER.warn("Peer " + peer + " rejected file " + filename + " - skipped: " + e.getStatusCode());
+        }
+    }
+
+    private static ResponseEntity<Resource> toDownload(String filename, HttpHeaders peerHeaders, InputStream body) {
+        MediaType contentType = peerHeaders.getContentType();
+        String contentDisposition = peerHeaders.getFirst(HttpHeaders.CONTENT_DISPOSITION);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition != null ? contentDisposition
+                        : "attachment; filename=\"" + filename + "\"");
+
+        if (peerHeaders.getContentLength() >= 0) {
+            response.contentLength(peerHeaders.getContentLength());
+        }
+
+        return response.body(new InputStreamResource(body));
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+        return requestFactory;
+    }
+
+    /**
+     * Retry state for a single peer - updated by its shipping task and by failed downloads from it
+     */
+    private final class PeerState {
+        private int failures;
+        private long retryAt;
+
+        synchronized boolean isBackingOff() {
+            return System.currentTimeMillis() < retryAt;
+        }
+
+        synchronized void recordSuccess(String peer) {
+            if (failures > 0) {
+                LOGGER.info("Peer " + peer + " reachable again");
+            }
+            failures = 0;
+            retryAt = 0;
+        }
+
+        synchronized void recordFailure(String peer, RuntimeException e) {
+            failures++;
+            long backoff = properties.getRetryBackoff().toMillis() << Math.min(failures - 1, 20);
+            long delay = Math.min(backoff, properties.getMaxRetryBackoff().toMillis());
+            retryAt = System.currentTimeMillis() + delay;
+
+            LOGGER.warn("Request to peer " + peer + " failed (attempt " + failures + "), retrying in " + delay
+                    + "ms: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.exception.SearchException;
+import com.motorola.fileserver.model.SearchResult;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Search stored filenames using the {@link FilenameIndex}
+ */
+@Service
+public class SearchService implements ISearchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchService.class);
+    static final int MAX_LIMIT = 1000;
+
+    private final FilenameIndex filenameIndex;
+    private final IStorageService storageService;
+
+    @Autowired
+    public SearchService(FilenameIndex filenameIndex, IStorageService storageService) {
+        this.filenameIndex = filenameIndex;
+        this.storageService = storageService;
+    }
+
+    /**
+     * Index the files already stored, named the same way as in store/delete events - later changes are picked up
+     * from those events
+     */
+    @PostConstruct
+    public void buildIndex() {
+        storageService.retrieveStoredFilenames().forEach(filenameIndex::add);
+        LOGGER.info("Filename index built with " + filenameIndex.size() + " files");
+    }
+
+    /**
+     * Search filenames by exactly one of prefix, substring or glob pattern
+     *
+     * @param prefix    Find names starting with this value
+     * @param substring Find names containing this value
+     * @param glob      Find names matching this pattern, where '*' matches any characters and '?' a single character
+     * @param after     Cursor returned with the previous page - null for the first page
+     * @param limit     Maximum number of names to return
+     * @return a page of matching names in ascending order
+     */
+    @Override
+    public SearchResult search(String prefix, String substring, String glob, String after, int limit) {
+        if (Stream.of(prefix, substring, glob).filter(Objects::nonNull).count() != 1) {
+            throw new SearchException("Exactly one of prefix, substring or glob must be provided.");
+        }
+
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new SearchException("Limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+
+        // a pattern of wildcards alone cannot be narrowed down by the index - unless it is only '*', every name
+        // would have to be examined to fill a page
+        if (glob != null && glob.chars().allMatch(c -> c == '*' || c == '?')
+                && (glob.isEmpty() || glob.indexOf('?') >= 0)) {
+            throw new SearchException("Glob must contain a character other than '*' or '?', or consist of '*' only.");
+        }
+
+        LOGGER.debug("Search prefix: " + prefix + ", substring: " + substring + ", glob: " + glob);
+
+        if (prefix != null) {
+            return filenameIndex.searchPrefix(prefix, after, limit);
+        } else if (substring != null) {
+            return filenameIndex.searchSubstring(substring, after, limit);
+        }
+        return filenameIndex.searchGlob(glob, after, limit);
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.model.StorageEvent;
+
+/**
+ * Receives notifications of files being stored or deleted by the storage service
+ */
+public interface StorageEventListener {
+
+    void onEvent(StorageEvent event);
+}
@@ -0,0 +1,145 @@
+package com.motorola.fileserver.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel holding one deadline per key, measured in whole ticks.
+ * Each level has 64 slots, and every slot on a level spans 64 times as many ticks as a slot on the level below.
+ * A key is placed on the lowest level that reaches its deadline and moved down a level each time the wheel turns
+ * past its slot, so scheduling, cancelling and expiring a key are all constant time regardless of how many keys are
+ * held. Not thread-safe - callers must synchronise access.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+
+    // 6 levels of 64 slots reach 2^36 ticks ahead - over 2000 years with one second ticks
+    private static final int LEVELS = 6;
+
+    private final Set<String>[][] slots;
+    private final Map<String, Timer> timers = new HashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long currentTick) {
+        this.slots = new Set[LEVELS][SLOTS];
+        this.currentTick = currentTick;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public boolean contains(String key) {
+        return timers.containsKey(key);
+    }
+
+    /**
+     * Schedule a key to expire at the given tick, replacing any deadline it already has. A deadline that has already
+     * passed expires on the next tick
+     */
+    public void schedule(String key, long deadline) {
+        cancel(key);
+        place(key, deadline, currentTick + 1);
+    }
+
+    /**
+     * @return true if the key was scheduled
+     */
+    public boolean cancel(String key) {
+        Timer timer = timers.remove(key);
+
+        if (timer == null) {
+            return false;
+        }
+
+        slots[timer.level()][timer.slot()].remove(key);
+        return true;
+    }
+
+    /**
+     * Turn the wheel up to the given tick
+     *
+     * @return the keys whose deadline was reached, which are no longer scheduled
+     */
+    public List<String> advance(long tick) {
+        List<String> expired = new ArrayList<>();
+
+        // nothing to move or expire, so skip straight to the requested tick
+        if (timers.isEmpty()) {
+            currentTick = Math.max(currentTick, tick);
+            return expired;
+        }
+
+        while (currentTick < tick) {
+            currentTick++;
+
+            // each time a level wraps around, move the next slot of the level above down towards level 0
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level, (int) ((currentTick >> (SLOT_BITS * level)) & MASK));
+            }
+
+            Set<String> due = slots[0][(int) (currentTick & MASK)];
+            if (due != null && !due.isEmpty()) {
+                due.forEach(timers::remove);
+                expired.addAll(due);
+                due.clear();
+            }
+        }
+
+        return expired;
+    }
+
+    private void cascade(int level, int slot) {
+        Set<String> keys = slots[level][slot];
+
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+
+        slots[level][slot] = null;
+        for (String key : keys) {
+            // keys due on the current tick land in the level 0 slot that is about to expire
+            place(key, timers.get(key).deadline(), currentTick);
+        }
+    }
+
+    private void place(String key, long deadline, long earliest) {
+        long target = Math.max(deadline, earliest);
+        long delta = target - currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+
+        int slot = (int) ((target >> (SLOT_BITS * level)) & MASK);
+        if (slots[level][slot] == null) {
+            slots[level][slot] = new HashSet<>();
+        }
+
+        slots[level][slot].add(key);
+        timers.put(key, new Timer(deadline, level, slot));
+    }
+
+    /**
+     * Where a key is held and when it expires
+     */
+    private record Timer(long deadline, int level, int slot) {
+    }
+
+}
@@ -3,8 +3,12 @@ package com.motorola.fileserver.util;
 import com.motorola.fileserver.exception.FileValidationException;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
+
 public class FileValidator {
 
+    private static final Duration MAX_TIME_TO_LIVE = Duration.ofDays(3650);
+
     public static String getValidFileForUpload(MultipartFile file) {
 
         if (file.isEmpty()) {
@@ -24,4 +28,10 @@ public class FileValidator {
             throw new FileValidationException("Invalid filename.");
         }
     }
+
+    public static void validateTimeToLive(Duration ttl) {
+        if (ttl != null && (ttl.isNegative() || ttl.isZero() || ttl.compareTo(MAX_TIME_TO_LIVE) > 0)) {
+            throw new FileValidationException("Time-to-live must be positive and at most " + MAX_TIME_TO_LIVE + ".");
+        }
+    }
 }
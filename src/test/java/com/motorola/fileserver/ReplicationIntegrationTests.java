@@ -0,0 +1,219 @@
+package com.motorola.fileserver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Runs several file server instances on localhost and checks operations are replicated between them
+ */
+public class ReplicationIntegrationTests {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    public void testStoreAndDelete_replicatedToPeer() throws Exception {
+        String peerUrl = startNode("peer", 0);
+        RestClient peer = RestClient.create(peerUrl);
+        RestClient node = RestClient.create(startNode("node", 0, peerUrl));
+
+        upload(node, "replicated.txt", "Replicated content");
+        awaitCondition(() -> listFiles(peer).contains("replicated.txt"));
+        assertThat(download(peer, "replicated.txt")).isEqualTo("Replicated content");
+
+        node.delete().uri("/delete/replicated.txt").retrieve().toBodilessEntity();
+        awaitCondition(() -> !listFiles(peer).contains("replicated.txt"));
+    }
+
+    @Test
+    public void testStore_subdirectoryFileReplicatedToPeer() throws Exception {
+        String peerUrl = startNode("peer", 0);
+        RestClient peer = RestClient.create(peerUrl);
+        RestClient node = RestClient.create(startNode("node", 0, peerUrl));
+
+        upload(node, "dir/nested.txt", "Nested content");
+        upload(node, "after.txt", "After");
+
+        // the file after the nested one is only shipped once the nested one has been accepted
+        awaitCondition(() -> listFiles(peer).contains("after.txt"));
+        assertThat(download(peer, "dir/nested.txt")).isEqualTo("Nested content");
+
+        node.delete().uri("/delete/dir/nested.txt").retrieve().toBodilessEntity();
+        awaitCondition(() -> peer.get().uri("/download/dir/nested.txt")
+                .exchange((request, response) -> response.getStatusCode().value()) == 404);
+    }
+
+    @Test
+    public void testDownload_failsOverToPeer() {
+        String peerUrl = startNode("peer", 0);
+        RestClient peer = RestClient.create(peerUrl);
+        RestClient node = RestClient.create(startNode("node", 0, peerUrl));
+
+        // the peer has no peers of its own, so this file only exists on the peer
+        upload(peer, "remote.txt", "Remote content");
+
+        assertThat(listFiles(node)).doesNotContain("remote.txt");
+        assertThat(download(node, "remote.txt")).isEqualTo("Remote content");
+    }
+
+    @Test
+    public void testStore_caughtUpWhenPeerStarts() throws Exception {
+        int peerPort = findFreePort();
+        RestClient node = RestClient.create(startNode("node", 0, "http://localhost:" + peerPort));
+
+        upload(node, "first.txt", "First");
+        upload(node, "second.txt", "Second");
+
+        RestClient peer = RestClient.create(startNode("peer", peerPort));
+        awaitCondition(() -> listFiles(peer).containsAll(List.of("first.txt", "second.txt")));
+        assertThat(download(peer, "second.txt")).isEqualTo("Second");
+    }
+
+    @Test
+    public void testStore_caughtUpAfterSenderRestarts() throws Exception {
+        int peerPort = findFreePort();
+        String peerUrl = "http://localhost:" + peerPort;
+
+        ConfigurableApplicationContext firstRun = startContext("node", 0, List.of(), peerUrl);
+        RestClient node = RestClient.create(baseUrl(firstRun));
+
+        // the peer is not running yet, so both operations stay pending in the sender's log
+        upload(node, "pending.txt", "Pending");
+        upload(node, "deleted.txt", "Deleted");
+        node.delete().uri("/delete/deleted.txt").retrieve().toBodilessEntity();
+        firstRun.close();
+
+        RestClient peer = RestClient.create(startNode("peer", peerPort));
+        startNode("node", 0, peerUrl);
+
+        awaitCondition(() -> listFiles(peer).contains("pending.txt"));
+        assertThat(download(peer, "pending.txt")).isEqualTo("Pending");
+        assertThat(listFiles(peer)).doesNotContain("deleted.txt");
+    }
+
+    @Test
+    public void testStore_peerTooFarBehindResynchronised() throws Exception {
+        int peerPort = findFreePort();
+        RestClient node = RestClient.create(baseUrl(startContext("node", 0,
+                List.of("--replication.max-pending-operations=2"), "http://localhost:" + peerPort)));
+
+        // more operations than the node keeps, so the peer cannot be caught up from the log alone
+        upload(node, "first.txt", "First");
+        upload(node, "second.txt", "Second");
+        upload(node, "third.txt", "Third");
+        upload(node, "dir/fourth.txt", "Fourth");
+
+        RestClient peer = RestClient.create(startNode("peer", peerPort));
+
+        awaitCondition(() -> listFiles(peer).containsAll(List.of("first.txt", "second.txt", "third.txt")));
+        assertThat(download(peer, "first.txt")).isEqualTo("First");
+        assertThat(download(peer, "dir/fourth.txt")).isEqualTo("Fourth");
+    }
+
+    /**
+     * Start a node with its own storage and replication log locations
+     *
+     * @return the base URL of the started node
+     */
+    private String startNode(String name, int port, String... peers) {
+        return baseUrl(startContext(name, port, List.of(), peers));
+    }
+
+    /**
+     * Start a node - a node started again under the same name keeps its files and replication log
+     *
+     * @param settings Additional command line settings, e.g. "--replication.batch-size=1"
+     */
+    private ConfigurableApplicationContext startContext(String name, int port, List<String> settings,
+                                                        String... peers) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + port,
+                "--storage.location=" + tempDir.resolve(name).resolve("uploads"),
+                "--replication.log-location=" + tempDir.resolve(name).resolve("replication"),
+                "--expiry.location=" + tempDir.resolve(name).resolve("expiry"),
+                "--replication.ship-interval=100ms",
+                "--replication.retry-backoff=100ms",
+                "--replication.max-retry-backoff=500ms"));
+
+        if (peers.length > 0) {
+            args.add("--replication.peers=" + String.join(",", peers));
+        }
+        args.addAll(settings);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FileServerApplication.class)
+                .run(args.toArray(String[]::new));
+        nodes.add(context);
+
+        return context;
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    private static void upload(RestClient client, String filename, String content) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(content.getBytes()) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        });
+
+        client.post().uri("/upload").contentType(MediaType.MULTIPART_FORM_DATA).body(body)
+                .retrieve().toBodilessEntity();
+    }
+
+    private static String download(RestClient client, String filename) {
+        return client.get().uri("/download/" + filename).retrieve().body(String.class);
+    }
+
+    private static List<String> listFiles(RestClient client) {
+        return client.get().uri("/list").retrieve().body(new ParameterizedTypeReference<List<String>>() {
+        });
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.motorola.fileserver.controller;
 import com.motorola.fileserver.exception.DownloadException;
 import com.motorola.fileserver.exception.FileValidationException;
 import com.motorola.fileserver.exception.StorageException;
+import com.motorola.fileserver.service.IReplicationService;
 import com.motorola.fileserver.service.IStorageService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -15,7 +16,9 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.BDDMockito.then;
@@ -38,6 +41,9 @@ public class ManageFileControllerTests {
     @MockitoBean
     private IStorageService storageService;
 
+    @MockitoBean
+    private IReplicationService replicationService;
+
     @Test
     public void testUpload_shouldSaveUploadedFile() throws Exception {
         MockMultipartFile multipartFile = new MockMultipartFile("file", "test.txt",
@@ -49,6 +55,24 @@ public class ManageFileControllerTests {
         then(this.storageService).should().store(multipartFile);
     }
 
+    @Test
+    public void testUpload_withTimeToLive() throws Exception {
+        MockMultipartFile multipartFile = new MockMultipartFile("file", "scratch.txt",
+                "text/plain", "Spring Framework".getBytes());
+        this.mvc.perform(multipart("/upload").file(multipartFile).param("ttl", "12h"))
+                .andExpect(status().isCreated());
+
+        then(this.storageService).should().store(multipartFile, Duration.ofHours(12));
+    }
+
+    @Test
+    public void testUpload_invalidTimeToLive() throws Exception {
+        MockMultipartFile multipartFile = new MockMultipartFile("file", "scratch.txt",
+                "text/plain", "Spring Framework".getBytes());
+        this.mvc.perform(multipart("/upload").file(multipartFile).param("ttl", "soon"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testDownload_shouldDownloadFile() throws Exception {
         String filename = "test_file.txt";
@@ -60,6 +84,15 @@ public class ManageFileControllerTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testDownload_fileInSubdirectory() throws Exception {
+        Resource mockResult = Mockito.mock();
+        when(storageService.download("reports/2024.csv")).thenReturn(ResponseEntity.ok(mockResult));
+
+        this.mvc.perform(get("/download/reports/2024.csv"))
+                .andExpect(status().isOk());
+    }
+
     @Test
     public void testDownload_fileNotFound() throws Exception {
         String filename = "invalid_file.csv";
@@ -71,6 +104,19 @@ public class ManageFileControllerTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testDownload_fileFoundOnPeer() throws Exception {
+        String filename = "remote_file.txt";
+
+        Resource mockResult = Mockito.mock();
+        when(storageService.download(filename))
+                .thenThrow(new DownloadException("File " + filename + " does not exist."));
+        when(replicationService.downloadFromPeer(filename)).thenReturn(Optional.of(ResponseEntity.ok(mockResult)));
+
+        this.mvc.perform(get("/download/" + filename))
+                .andExpect(status().isOk());
+    }
+
     @Test
     public void testDownload_internalServerError() throws Exception {
         String filename = " ";
@@ -91,6 +137,15 @@ public class ManageFileControllerTests {
                 .andExpect(content().string(containsString("Successfully deleted: test_file.png")));
     }
 
+    @Test
+    public void testDelete_fileInSubdirectory() throws Exception {
+        this.mvc.perform(delete("/delete/reports/2024.csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Successfully deleted: reports/2024.csv")));
+
+        then(this.storageService).should().delete("reports/2024.csv");
+    }
+
     @Test
     public void testDelete_fileNotFound() throws Exception {
         String filename = "invalid.file";
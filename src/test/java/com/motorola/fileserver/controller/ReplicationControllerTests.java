@@ -0,0 +1,63 @@
+package com.motorola.fileserver.controller;
+
+import com.motorola.fileserver.exception.FileTooLargeException;
+import com.motorola.fileserver.exception.FileValidationException;
+import com.motorola.fileserver.service.IReplicationService;
+import com.motorola.fileserver.service.IStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class ReplicationControllerTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockitoBean
+    private IStorageService storageService;
+
+    @MockitoBean
+    private IReplicationService replicationService;
+
+    @Test
+    public void testReceiveFile_limitedToMaxUploadSize() throws Exception {
+        this.mvc.perform(put("/replication/files").param("filename", "dir/replica.txt")
+                        .content("Replicated content".getBytes()))
+                .andExpect(status().isOk());
+
+        // spring.servlet.multipart.max-file-size in application.yaml
+        then(this.storageService).should().storeReplica(eq("dir/replica.txt"), any(), eq(128L * 1024));
+    }
+
+    @Test
+    public void testReceiveFile_tooLarge() throws Exception {
+        doThrow(new FileTooLargeException("File exceeds the maximum size of 131072 bytes."))
+                .when(storageService).storeReplica(eq("large.bin"), any(), anyLong());
+
+        this.mvc.perform(put("/replication/files").param("filename", "large.bin").content(new byte[1024]))
+                .andExpect(status().is(413));
+    }
+
+    @Test
+    public void testReceiveFile_invalidFilename() throws Exception {
+        doThrow(new FileValidationException("Invalid filename."))
+                .when(storageService).storeReplica(eq("../escaped.txt"), any(), anyLong());
+
+        this.mvc.perform(put("/replication/files").param("filename", "../escaped.txt").content(new byte[16]))
+                .andExpect(status().isBadRequest());
+    }
+
+}
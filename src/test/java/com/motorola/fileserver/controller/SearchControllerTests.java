@@ -0,0 +1,126 @@
+package com.motorola.fileserver.controller;
+
+import com.motorola.fileserver.service.FilenameIndex;
+import com.motorola.fileserver.service.IStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class SearchControllerTests {
+
+    private static final List<String> FILENAMES = List.of("report_2024.csv", "report_2025.csv", "notes.txt");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private FilenameIndex filenameIndex;
+
+    @MockitoBean
+    private IStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        FILENAMES.forEach(filenameIndex::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        FILENAMES.forEach(filenameIndex::remove);
+    }
+
+    @Test
+    public void testSearch_byPrefix() throws Exception {
+        this.mvc.perform(get("/search").param("prefix", "report"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", contains("report_2024.csv", "report_2025.csv")))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    @Test
+    public void testSearch_bySubstring() throws Exception {
+        this.mvc.perform(get("/search").param("substring", "tes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", contains("notes.txt")));
+    }
+
+    @Test
+    public void testSearch_byGlob() throws Exception {
+        this.mvc.perform(get("/search").param("glob", "*.csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", contains("report_2024.csv", "report_2025.csv")));
+    }
+
+    @Test
+    public void testSearch_pagesWithCursor() throws Exception {
+        this.mvc.perform(get("/search").param("prefix", "report").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", contains("report_2024.csv")))
+                .andExpect(jsonPath("$.next").value("report_2024.csv"));
+
+        this.mvc.perform(get("/search").param("prefix", "report").param("limit", "1")
+                        .param("after", "report_2024.csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", contains("report_2025.csv")))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    @Test
+    public void testSearch_noQuery() throws Exception {
+        this.mvc.perform(get("/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testSearch_severalQueries() throws Exception {
+        this.mvc.perform(get("/search").param("prefix", "report").param("glob", "*.csv"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testSearch_wildcardOnlyGlob() throws Exception {
+        this.mvc.perform(get("/search").param("glob", "???"))
+                .andExpect(status().isBadRequest());
+
+        this.mvc.perform(get("/search").param("glob", ""))
+                .andExpect(status().isBadRequest());
+
+        this.mvc.perform(get("/search").param("glob", "*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", contains("notes.txt", "report_2024.csv", "report_2025.csv")));
+    }
+
+    @Test
+    public void testSearch_limitBounds() throws Exception {
+        this.mvc.perform(get("/search").param("prefix", "report").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        this.mvc.perform(get("/search").param("prefix", "report").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+
+        this.mvc.perform(get("/search").param("prefix", "report").param("limit", "1000"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testSearch_invalidLimit() throws Exception {
+        this.mvc.perform(get("/search").param("prefix", "report").param("limit", "many"))
+                .andExpect(status().isBadRequest());
+    }
+
+}
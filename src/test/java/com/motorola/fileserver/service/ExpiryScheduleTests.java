@@ -0,0 +1,206 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.config.ExpiryProperties;
+import com.motorola.fileserver.config.StorageProperties;
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.StorageEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class ExpiryScheduleTests {
+
+    private ExpiryProperties properties;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExpiryProperties();
+        properties.setLocation(tempDir.toString());
+    }
+
+    @Test
+    public void testExpire_deletesExpiredFiles() {
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        Instant now = Instant.now();
+
+        schedule.onEvent(stored("expired.txt", now.plusSeconds(5)));
+        schedule.onEvent(stored("kept.txt", now.plusSeconds(60)));
+
+        assertThat(schedule.takeExpired(now.plusSeconds(10), 100)).containsExactly("expired.txt");
+        assertThat(schedule.isDue("expired.txt")).isTrue();
+
+        schedule.onEvent(new StorageEvent(OperationType.DELETE, "expired.txt", false));
+        assertThat(schedule.isDue("expired.txt")).isFalse();
+        assertThat(schedule.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpire_limitsDeletions() {
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        Instant now = Instant.now();
+
+        for (int i = 0; i < 5; i++) {
+            schedule.onEvent(stored("file" + i + ".txt", now.plusSeconds(1)));
+        }
+
+        List<String> deleted = new ArrayList<>(schedule.takeExpired(now.plusSeconds(10), 3));
+        assertThat(deleted).hasSize(3);
+
+        deleted.addAll(schedule.takeExpired(now.plusSeconds(11), 3));
+        assertThat(deleted).hasSize(5).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void testStoreWithoutTimeToLive_cancelsExpiry() {
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        Instant now = Instant.now();
+
+        schedule.onEvent(stored("file.txt", now.plusSeconds(5)));
+        schedule.onEvent(new StorageEvent(OperationType.STORE, "file.txt", false));
+
+        assertThat(schedule.takeExpired(now.plusSeconds(10), 100)).isEmpty();
+        assertThat(schedule.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSchedule_restoredAfterRestart() {
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        Instant now = Instant.now();
+
+        schedule.onEvent(stored("expired.txt", now.plus(Duration.ofHours(1))));
+        schedule.onEvent(stored("deleted.txt", now.plus(Duration.ofHours(1))));
+        schedule.onEvent(new StorageEvent(OperationType.DELETE, "deleted.txt", false));
+        schedule.onEvent(stored("kept.txt", now.plus(Duration.ofDays(7))));
+        schedule.close();
+
+        ExpirySchedule restored = new ExpirySchedule(properties);
+        assertThat(restored.size()).isEqualTo(2);
+
+        assertThat(restored.takeExpired(now.plus(Duration.ofHours(2)), 100)).containsExactly("expired.txt");
+    }
+
+    @Test
+    public void testRelease_dropsFileThatCouldNotBeDeleted() {
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        Instant now = Instant.now();
+
+        schedule.onEvent(stored("missing.txt", now.plusSeconds(5)));
+        schedule.takeExpired(now.plusSeconds(10), 100);
+        schedule.release("missing.txt");
+
+        assertThat(schedule.isDue("missing.txt")).isFalse();
+        assertThat(schedule.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testStoredAgainAfterExpiring_notDeleted() throws IOException {
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        FileSystemStorageService storageService = storageService(List.of(schedule));
+        Instant now = Instant.now();
+
+        schedule.onEvent(stored("file.txt", now.plusSeconds(5)));
+        assertThat(schedule.takeExpired(now.plusSeconds(10), 100)).containsExactly("file.txt");
+
+        // stored again between being taken for deletion and being deleted
+        storageService.store(upload("file.txt", "Stored again"), Duration.ofHours(1));
+
+        assertThat(storageService.deleteIf("file.txt", () -> schedule.isDue("file.txt"))).isFalse();
+        schedule.release("file.txt");
+
+        assertThat(Files.readString(tempDir.resolve("uploads/file.txt"))).isEqualTo("Stored again");
+        assertThat(schedule.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStoredAgainWhileDeleting_notDeleted() throws Exception {
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch finishStoring = new CountDownLatch(1);
+
+        // holds up the store after its file is written, before the schedule hears about it
+        StorageEventListener blocking = event -> {
+            if (event.type() == OperationType.STORE) {
+                storing.countDown();
+                awaitLatch(finishStoring);
+            }
+        };
+        FileSystemStorageService storageService = storageService(List.of(blocking, schedule));
+        Instant now = Instant.now();
+
+        schedule.onEvent(stored("file.txt", now.plusSeconds(5)));
+        assertThat(schedule.takeExpired(now.plusSeconds(10), 100)).containsExactly("file.txt");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> store = executor.submit(() -> storageService.store(upload("file.txt", "Stored again")));
+            assertThat(storing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<Boolean> delete = executor.submit(() ->
+                    storageService.deleteIf("file.txt", () -> schedule.isDue("file.txt")));
+
+            // the delete must wait for the store to be published rather than remove the new file
+            Thread.sleep(100);
+            assertThat(delete.isDone()).isFalse();
+
+            finishStoring.countDown();
+            store.get(5, TimeUnit.SECONDS);
+            assertThat(delete.get(5, TimeUnit.SECONDS)).isFalse();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(Files.readString(tempDir.resolve("uploads/file.txt"))).isEqualTo("Stored again");
+    }
+
+    @Test
+    public void testInvalidTick() {
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> properties.setTick(Duration.ZERO));
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> properties.setTick(Duration.ofNanos(999_999)));
+    }
+
+    private FileSystemStorageService storageService(List<StorageEventListener> listeners) {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setLocation(tempDir.resolve("uploads").toString());
+
+        return new FileSystemStorageService(storageProperties, listeners);
+    }
+
+    private static MultipartFile upload(String filename, String content) {
+        return new MockMultipartFile("file", filename, "text/plain", content.getBytes());
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static StorageEvent stored(String filename, Instant expiresAt) {
+        return new StorageEvent(OperationType.STORE, filename, false, expiresAt);
+    }
+
+}
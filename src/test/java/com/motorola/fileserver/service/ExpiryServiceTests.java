@@ -0,0 +1,92 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.config.ExpiryProperties;
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.StorageEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExpiryServiceTests {
+
+    private ExpiryProperties properties;
+    private IStorageService storageService;
+    private final AtomicInteger deleted = new AtomicInteger();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ExpiryProperties();
+        properties.setLocation(tempDir.toString());
+
+        storageService = mock(IStorageService.class);
+        when(storageService.deleteIf(anyString(), any())).thenAnswer(invocation -> {
+            deleted.incrementAndGet();
+            return true;
+        });
+    }
+
+    @Test
+    public void testDeleteExpired_limitedPerSecondWhenTickAllowsLessThanOne() {
+        // a tick is worth 0.2 deletes
+        properties.setTick(Duration.ofMillis(10));
+        properties.setMaxDeletesPerSecond(20);
+
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        ExpiryService service = new ExpiryService(properties, schedule, storageService);
+        Instant start = Instant.now();
+
+        for (int i = 0; i < 100; i++) {
+            schedule.onEvent(new StorageEvent(OperationType.STORE, "file" + i + ".txt", false, start));
+        }
+
+        // one second of ticks
+        for (int i = 1; i <= 100; i++) {
+            service.deleteExpired(start.plusMillis(i * 10L));
+        }
+
+        assertThat(deleted.get()).isBetween(19, 21);
+    }
+
+    @Test
+    public void testDeleteExpired_limitedPerTick() {
+        properties.setTick(Duration.ofMillis(100));
+        properties.setMaxDeletesPerSecond(50);
+
+        ExpirySchedule schedule = new ExpirySchedule(properties);
+        ExpiryService service = new ExpiryService(properties, schedule, storageService);
+        Instant start = Instant.now();
+
+        for (int i = 0; i < 100; i++) {
+            schedule.onEvent(new StorageEvent(OperationType.STORE, "file" + i + ".txt", false, start));
+        }
+
+        // an idle period does not build up more than one tick's worth of deletes
+        service.deleteExpired(start.plusSeconds(10));
+        assertThat(deleted.get()).isEqualTo(5);
+
+        service.deleteExpired(start.plusSeconds(20));
+        assertThat(deleted.get()).isEqualTo(10);
+    }
+
+    @Test
+    public void testInvalidMaxDeletesPerSecond() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> properties.setMaxDeletesPerSecond(0));
+    }
+
+}
@@ -2,8 +2,10 @@ package com.motorola.fileserver.service;
 
 import com.motorola.fileserver.config.StorageProperties;
 import com.motorola.fileserver.exception.DownloadException;
+import com.motorola.fileserver.exception.FileTooLargeException;
 import com.motorola.fileserver.exception.FileValidationException;
 import com.motorola.fileserver.exception.StorageException;
+import com.motorola.fileserver.model.StorageEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -15,9 +17,13 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -82,6 +88,16 @@ public class FileSystemStorageServiceTests {
                 .hasMessageContaining("Invalid filename");
     }
 
+    @Test
+    public void testStoreOutsideRootLocation() {
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getOriginalFilename()).thenReturn("../escaped.txt");
+
+        assertThatExceptionOfType(FileValidationException.class).isThrownBy(() -> storageService.store(file));
+        assertThat(Files.exists(tempDir.resolveSibling("escaped.txt"))).isFalse();
+    }
+
     @Test
     public void testStoreIOException() throws IOException {
         MultipartFile file = mock(MultipartFile.class);
@@ -157,6 +173,12 @@ public class FileSystemStorageServiceTests {
         assertThat(Files.exists(filepath)).isFalse();
     }
 
+    @Test
+    public void testDownloadOutsideRootLocation() {
+        assertThatExceptionOfType(FileValidationException.class)
+                .isThrownBy(() -> storageService.download("../escaped.txt"));
+    }
+
     @Test
     public void testDelete_fileNotFound() {
         String filename = "test.txt";
@@ -192,4 +214,114 @@ public class FileSystemStorageServiceTests {
         assertThat(filesList.size()).isEqualTo(0);
     }
 
+    @Test
+    public void testDeleteIf_conditionNotMet() throws IOException {
+        Path filepath = tempDir.resolve("test.txt");
+        Files.write(filepath, List.of("Test file"));
+
+        assertThat(storageService.deleteIf("test.txt", () -> false)).isFalse();
+        assertThat(Files.exists(filepath)).isTrue();
+
+        assertThat(storageService.deleteIf("test.txt", () -> true)).isTrue();
+        assertThat(Files.exists(filepath)).isFalse();
+    }
+
+    @Test
+    public void testStoreReplica() throws IOException {
+        storageService.storeReplica("replica.txt", new ByteArrayInputStream("Replicated content".getBytes()), 1024);
+
+        assertThat(Files.readString(tempDir.resolve("replica.txt"))).isEqualTo("Replicated content");
+    }
+
+    @Test
+    public void testStoreReplica_interruptedTransferKeepsExistingFile() throws IOException {
+        Path filepath = tempDir.resolve("replica.txt");
+        Files.writeString(filepath, "Existing content");
+
+        InputStream interrupted = new SequenceInputStream(new ByteArrayInputStream("Partial".getBytes()),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+
+        assertThatExceptionOfType(StorageException.class)
+                .isThrownBy(() -> storageService.storeReplica("replica.txt", interrupted, 1024));
+
+        assertThat(Files.readString(filepath)).isEqualTo("Existing content");
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(filepath);
+        }
+    }
+
+    @Test
+    public void testStoreReplica_tooLarge() throws IOException {
+        Path filepath = tempDir.resolve("replica.txt");
+        Files.writeString(filepath, "Existing content");
+
+        assertThatExceptionOfType(FileTooLargeException.class)
+                .isThrownBy(() -> storageService.storeReplica("replica.txt",
+                        new ByteArrayInputStream(new byte[2048]), 1024));
+
+        assertThat(Files.readString(filepath)).isEqualTo("Existing content");
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(filepath);
+        }
+    }
+
+    @Test
+    public void testStoreReplica_outsideRootLocation() {
+        assertThatExceptionOfType(FileValidationException.class)
+                .isThrownBy(() -> storageService.storeReplica("../escaped.txt",
+                        new ByteArrayInputStream("Test file".getBytes()), 1024));
+
+        assertThat(Files.exists(tempDir.resolveSibling("escaped.txt"))).isFalse();
+    }
+
+    @Test
+    public void testDeleteReplica() throws IOException {
+        Path filepath = tempDir.resolve("test.txt");
+        Files.write(filepath, List.of("Test file"));
+
+        storageService.deleteReplica("test.txt");
+
+        assertThat(Files.exists(filepath)).isFalse();
+    }
+
+    @Test
+    public void testDeleteReplica_fileNotFound() {
+        // deletes may be replicated more than once, so a missing file is not an error
+        storageService.deleteReplica("test.txt");
+
+        assertThat(Files.exists(tempDir.resolve("test.txt"))).isFalse();
+    }
+
+    @Test
+    public void testStore_publishesNameRelativeToRoot() throws IOException {
+        List<StorageEvent> events = new ArrayList<>();
+        StorageProperties props = new StorageProperties();
+        props.setLocation(tempDir.toString());
+        FileSystemStorageService publishingService = new FileSystemStorageService(props, List.of(events::add));
+
+        MultipartFile file = mock(MultipartFile.class);
+        when(file.isEmpty()).thenReturn(false);
+        when(file.getOriginalFilename()).thenReturn("./dir/../test.txt");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream("Test file".getBytes()));
+
+        publishingService.store(file);
+        publishingService.delete("./test.txt");
+
+        assertThat(events).extracting(StorageEvent::filename).containsExactly("test.txt", "test.txt");
+    }
+
+    @Test
+    public void testRetrieveStoredFilenames_includesSubdirectories() throws IOException {
+        Files.createDirectories(tempDir.resolve("dir/empty"));
+        Files.write(tempDir.resolve("top.txt"), List.of("Top"));
+        Files.write(tempDir.resolve("dir/nested.txt"), List.of("Nested"));
+
+        assertThat(storageService.retrieveStoredFilenames()).containsExactlyInAnyOrder("top.txt", "dir/nested.txt");
+    }
+
 }
@@ -0,0 +1,110 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.SearchResult;
+import com.motorola.fileserver.model.StorageEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilenameIndexTests {
+
+    private FilenameIndex filenameIndex;
+
+    @BeforeEach
+    void setUp() {
+        filenameIndex = new FilenameIndex();
+        List.of("report_2024.csv", "report_2025.csv", "photo.png", "notes.txt", "old_report.txt")
+                .forEach(filenameIndex::add);
+    }
+
+    @Test
+    public void testSearchPrefix() {
+        SearchResult result = filenameIndex.searchPrefix("report", null, 10);
+
+        assertThat(result.names()).containsExactly("report_2024.csv", "report_2025.csv");
+        assertThat(result.next()).isNull();
+    }
+
+    @Test
+    public void testSearchSubstring() {
+        assertThat(filenameIndex.searchSubstring("report", null, 10).names())
+                .containsExactly("old_report.txt", "report_2024.csv", "report_2025.csv");
+    }
+
+    @Test
+    public void testSearchSubstring_shorterThanTrigram() {
+        assertThat(filenameIndex.searchSubstring("no", null, 10).names()).containsExactly("notes.txt");
+    }
+
+    @Test
+    public void testSearchSubstring_singleCharacter() {
+        assertThat(filenameIndex.searchSubstring("h", null, 10).names()).containsExactly("photo.png");
+        assertThat(filenameIndex.searchSubstring("z", null, 10).names()).isEmpty();
+    }
+
+    @Test
+    public void testSearchSubstring_noMatch() {
+        assertThat(filenameIndex.searchSubstring("missing", null, 10).names()).isEmpty();
+    }
+
+    @Test
+    public void testSearchGlob() {
+        assertThat(filenameIndex.searchGlob("*.txt", null, 10).names()).containsExactly("notes.txt", "old_report.txt");
+        assertThat(filenameIndex.searchGlob("report_202?.csv", null, 10).names())
+                .containsExactly("report_2024.csv", "report_2025.csv");
+        assertThat(filenameIndex.searchGlob("*o*", null, 10).names()).hasSize(5);
+    }
+
+    @Test
+    public void testSearchGlob_shortLiterals() {
+        assertThat(filenameIndex.searchGlob("*.p?g", null, 10).names()).containsExactly("photo.png");
+        assertThat(filenameIndex.searchGlob("*_2*", null, 10).names())
+                .containsExactly("report_2024.csv", "report_2025.csv");
+        assertThat(filenameIndex.searchGlob("n*", null, 10).names()).containsExactly("notes.txt");
+        assertThat(filenameIndex.searchGlob("*", null, 10).names()).hasSize(5);
+    }
+
+    @Test
+    public void testStorageEvents_shortGramsRemoved() {
+        filenameIndex.remove("photo.png");
+
+        assertThat(filenameIndex.searchSubstring("h", null, 10).names()).isEmpty();
+        assertThat(filenameIndex.searchGlob("*.p?g", null, 10).names()).isEmpty();
+    }
+
+    @Test
+    public void testSearch_paged() {
+        SearchResult first = filenameIndex.searchSubstring("o", null, 2);
+        assertThat(first.names()).containsExactly("notes.txt", "old_report.txt");
+        assertThat(first.next()).isEqualTo("old_report.txt");
+
+        SearchResult second = filenameIndex.searchSubstring("o", first.next(), 2);
+        assertThat(second.names()).containsExactly("photo.png", "report_2024.csv");
+
+        SearchResult last = filenameIndex.searchSubstring("o", second.next(), 2);
+        assertThat(last.names()).containsExactly("report_2025.csv");
+        assertThat(last.next()).isNull();
+    }
+
+    @Test
+    public void testSearchPrefix_cursorOutsidePrefix() {
+        assertThat(filenameIndex.searchPrefix("report", "a", 10).names()).hasSize(2);
+        assertThat(filenameIndex.searchPrefix("report", "z", 10).names()).isEmpty();
+    }
+
+    @Test
+    public void testStorageEvents_keepIndexInSync() {
+        filenameIndex.onEvent(new StorageEvent(OperationType.STORE, "report_2026.csv", false));
+        filenameIndex.onEvent(new StorageEvent(OperationType.DELETE, "report_2024.csv", true));
+
+        assertThat(filenameIndex.searchPrefix("report", null, 10).names())
+                .containsExactly("report_2025.csv", "report_2026.csv");
+        assertThat(filenameIndex.searchSubstring("2024", null, 10).names()).isEmpty();
+        assertThat(filenameIndex.size()).isEqualTo(5);
+    }
+
+}
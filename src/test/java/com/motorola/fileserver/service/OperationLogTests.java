@@ -0,0 +1,188 @@
+package com.motorola.fileserver.service;
+
+import com.motorola.fileserver.config.ReplicationProperties;
+import com.motorola.fileserver.model.OperationType;
+import com.motorola.fileserver.model.StorageEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OperationLogTests {
+
+    private static final String PEER_A = "http://localhost:8081";
+    private static final String PEER_B = "http://localhost:8082";
+
+    private ReplicationProperties properties;
+    private OperationLog operationLog;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReplicationProperties();
+        properties.setLogLocation(tempDir.toString());
+        properties.setPeers(List.of(PEER_A + "/", PEER_B));
+
+        operationLog = new OperationLog(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        operationLog.close();
+    }
+
+    @Test
+    public void testDisabledWithoutPeers() {
+        properties.setPeers(List.of());
+        OperationLog disabled = new OperationLog(properties);
+
+        disabled.onEvent(stored("test.txt"));
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.readAfter(PEER_A, 10)).isEmpty();
+    }
+
+    @Test
+    public void testRecordsLocalOperationsOnly() {
+        operationLog.onEvent(stored("local.txt"));
+        operationLog.onEvent(new StorageEvent(OperationType.STORE, "replicated.txt", true));
+        operationLog.onEvent(new StorageEvent(OperationType.DELETE, "local.txt", false));
+
+        assertThat(operationLog.getPeers()).containsExactly(PEER_A, PEER_B);
+        assertThat(operationLog.readAfter(PEER_A, 10)).containsExactly(
+                new OperationLog.Entry(1, OperationType.STORE, "local.txt"),
+                new OperationLog.Entry(2, OperationType.DELETE, "local.txt"));
+    }
+
+    @Test
+    public void testAcknowledge_tracksEachPeer() {
+        for (int i = 0; i < 5; i++) {
+            operationLog.onEvent(stored("file" + i + ".txt"));
+        }
+
+        operationLog.acknowledge(PEER_A, 3);
+
+        assertThat(operationLog.readAfter(PEER_A, 10)).extracting(OperationLog.Entry::sequence).containsExactly(4L, 5L);
+        assertThat(operationLog.readAfter(PEER_B, 2)).extracting(OperationLog.Entry::sequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void testRestart_restoresPendingOperationsAndPositions() {
+        operationLog.onEvent(stored("first.txt"));
+        operationLog.onEvent(stored("second\tname.txt"));
+        operationLog.acknowledge(PEER_A, 1);
+        operationLog.close();
+
+        operationLog = new OperationLog(properties);
+
+        assertThat(operationLog.getPosition(PEER_A)).isEqualTo(1);
+        assertThat(operationLog.readAfter(PEER_A, 10)).containsExactly(
+                new OperationLog.Entry(2, OperationType.STORE, "second\tname.txt"));
+        assertThat(operationLog.readAfter(PEER_B, 10)).hasSize(2);
+    }
+
+    @Test
+    public void testCompaction_continuesSequenceAfterRestart() throws IOException {
+        for (int i = 0; i < 2000; i++) {
+            operationLog.onEvent(stored("file" + i + ".txt"));
+        }
+
+        operationLog.acknowledge(PEER_A, 2000);
+        operationLog.acknowledge(PEER_B, 2000);
+        operationLog.close();
+
+        // everything acknowledged by all peers has been dropped from the log file
+        assertThat(Files.readAllLines(tempDir.resolve("operations.log"))).isEmpty();
+
+        operationLog = new OperationLog(properties);
+        operationLog.onEvent(stored("after_restart.txt"));
+
+        assertThat(operationLog.readAfter(PEER_A, 10)).containsExactly(
+                new OperationLog.Entry(2001, OperationType.STORE, "after_restart.txt"));
+    }
+
+    @Test
+    public void testRestart_skipsTornLastLine() throws IOException {
+        operationLog.onEvent(stored("complete.txt"));
+        operationLog.close();
+
+        // simulate a crash part way through appending a line
+        Files.writeString(tempDir.resolve("operations.log"), "2\tST", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        operationLog = new OperationLog(properties);
+        operationLog.onEvent(stored("next.txt"));
+
+        assertThat(operationLog.readAfter(PEER_A, 10)).containsExactly(
+                new OperationLog.Entry(1, OperationType.STORE, "complete.txt"),
+                new OperationLog.Entry(2, OperationType.STORE, "next.txt"));
+
+        // the operation appended after the torn line must survive another restart
+        operationLog.close();
+        operationLog = new OperationLog(properties);
+
+        assertThat(operationLog.readAfter(PEER_A, 10)).hasSize(2);
+    }
+
+    @Test
+    public void testRetention_peerTooFarBehindNeedsResync() {
+        operationLog.close();
+        properties.setMaxPendingOperations(5);
+        operationLog = new OperationLog(properties);
+
+        for (int i = 1; i <= 8; i++) {
+            operationLog.onEvent(stored("file" + i + ".txt"));
+            operationLog.acknowledge(PEER_A, i);
+        }
+
+        // peer B never acknowledged anything, so the 3 operations dropped beyond the limit are lost to it
+        assertThat(operationLog.getTruncatedSequence()).isEqualTo(3);
+        assertThat(operationLog.needsResync(PEER_A)).isFalse();
+        assertThat(operationLog.needsResync(PEER_B)).isTrue();
+        assertThat(operationLog.readAfter(PEER_B, 10)).isEmpty();
+
+        // once resynchronised, shipping continues from the oldest operation still held
+        operationLog.acknowledge(PEER_B, operationLog.getTruncatedSequence());
+
+        assertThat(operationLog.needsResync(PEER_B)).isFalse();
+        assertThat(operationLog.readAfter(PEER_B, 10)).extracting(OperationLog.Entry::sequence)
+                .containsExactly(4L, 5L, 6L, 7L, 8L);
+    }
+
+    @Test
+    public void testRetention_truncationSurvivesCompactionAndRestart() throws IOException {
+        operationLog.close();
+        properties.setMaxPendingOperations(10);
+        operationLog = new OperationLog(properties);
+
+        for (int i = 0; i < 2000; i++) {
+            operationLog.onEvent(stored("file" + i + ".txt"));
+        }
+        operationLog.close();
+
+        // the dropped operations have been compacted out of the log file
+        assertThat(Files.readAllLines(tempDir.resolve("operations.log"))).hasSizeLessThan(2000);
+
+        operationLog = new OperationLog(properties);
+
+        assertThat(operationLog.getTruncatedSequence()).isEqualTo(1990);
+        assertThat(operationLog.needsResync(PEER_A)).isTrue();
+        assertThat(operationLog.needsResync(PEER_B)).isTrue();
+    }
+
+    private static StorageEvent stored(String filename) {
+        return new StorageEvent(OperationType.STORE, filename, false);
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.motorola.fileserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimingWheelTests {
+
+    @Test
+    public void testAdvance_expiresKeysOnTheirDeadline() {
+        TimingWheel wheel = new TimingWheel(1000);
+        wheel.schedule("soon", 1010);
+        wheel.schedule("later", 1000 + 5000);
+        wheel.schedule("much_later", 1000 + 400_000);
+
+        assertThat(wheel.advance(1009)).isEmpty();
+        assertThat(wheel.advance(1010)).containsExactly("soon");
+        assertThat(wheel.advance(5999)).isEmpty();
+        assertThat(wheel.advance(6000)).containsExactly("later");
+        assertThat(wheel.advance(400_999)).isEmpty();
+        assertThat(wheel.advance(401_000)).containsExactly("much_later");
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAdvance_overdueKeyExpiresOnNextTick() {
+        TimingWheel wheel = new TimingWheel(1000);
+        wheel.schedule("overdue", 10);
+
+        assertThat(wheel.advance(1001)).containsExactly("overdue");
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel wheel = new TimingWheel(0);
+        wheel.schedule("cancelled", 100);
+
+        assertThat(wheel.cancel("cancelled")).isTrue();
+        assertThat(wheel.cancel("cancelled")).isFalse();
+        assertThat(wheel.advance(200)).isEmpty();
+    }
+
+    @Test
+    public void testSchedule_replacesDeadline() {
+        TimingWheel wheel = new TimingWheel(0);
+        wheel.schedule("file", 100);
+        wheel.schedule("file", 10_000);
+
+        assertThat(wheel.advance(9999)).isEmpty();
+        assertThat(wheel.advance(10_000)).containsExactly("file");
+    }
+
+}